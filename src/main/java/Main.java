@@ -1,8 +1,10 @@
 import java.io.FileNotFoundException;
 import java.io.IOException;
 
+import experiments.BatchRunner;
+import experiments.Scenario;
 import org.mariuszgromada.math.mxparser.License;
-import simulation.DES;
+import simulation.RandomStreams;
 
 import java.time.Duration;
 
@@ -14,7 +16,7 @@ public class Main {
     /**
      * Main method to initialize and run the PoissonSimulator.
      *
-     * @param args Command-line arguments (unused).
+     * @param args Command-line arguments: an optional seed. Without one a random seed is chosen and printed.
      * @throws IOException If configuration loading fails.
      */
     public static void main(String[] args) throws IOException {
@@ -26,17 +28,26 @@ public class Main {
 
         // Run the simulation for 7 days
         //simulation.runSimulation(Duration.ofDays(7));
-        repeat(10,Duration.ofDays(100));
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : RandomStreams.withRandomSeed().getSeed();
+        System.out.println("Seed: " + seed);
+        repeat(10, Duration.ofDays(100), seed);
     }
 
-    public static void repeat(int iterations, Duration duration) throws IOException {
-        for (int i = 0; i < iterations; i++) {
-            run(duration);
-        }
-    }
-
-    public static void run(Duration duration) throws IOException {
-        DES simulation = new DES();
-        simulation.start(duration);
+    /**
+     * Runs independent replications of the config.json setup in parallel, see {@link BatchRunner}. Replication i uses
+     * the same derived seed for a given base seed, so repeating an experiment with another configuration and the same
+     * seed gives paired replications.
+     *
+     * @param iterations The number of replications.
+     * @param duration   The simulated duration of each replication.
+     * @param seed       The base seed of the experiment.
+     * @throws IOException If configuration loading fails.
+     */
+    public static void repeat(int iterations, Duration duration, long seed) throws IOException {
+        Scenario scenario = new Scenario();
+        scenario.setName("default");
+        scenario.setDurationDays((int) duration.toDays());
+        scenario.setSeed(seed);
+        BatchRunner.report(scenario, BatchRunner.run(scenario, iterations, Runtime.getRuntime().availableProcessors()));
     }
 }
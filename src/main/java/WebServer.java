@@ -2,13 +2,20 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import simulation.Config;
 import simulation.DES;
+import simulation.DispatchPolicy;
 import simulation.Patient;
+import simulation.PatientStatistics;
+import simulation.ProbeRecorder;
+import simulation.RandomStreams;
+import simulation.RunConfig;
 import spark.Spark;
 
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -66,8 +73,10 @@ public class WebServer {
             int days = 1;
             Map<String, Object> hyperparameters = new HashMap<>();
             String triageLevel = null;
-            String arrivalFunction = "sinusoidal_24h"; // Default from config
+            String arrivalFunction = null; // config.json's defaultArrivalFunction unless given
             String triageClassifier = "CTAS";
+            Long seed = null;
+            String dispatchPolicy = null;
             
             if (body != null) {
                 if (body.containsKey("days")) {
@@ -94,15 +103,41 @@ public class WebServer {
                 if (body.containsKey("triageClassifier")) {
                     triageClassifier = (String) body.get("triageClassifier");
                 }
+                if (body.containsKey("dispatchPolicy")) {
+                    dispatchPolicy = (String) body.get("dispatchPolicy");
+                }
+                // Seeds above 2^53 do not survive as JSON numbers, so they can also be sent as strings
+                Object seedValue = body.get("seed");
+                try {
+                    if (seedValue instanceof Number number) {
+                        seed = new BigDecimal(number.toString()).longValueExact(); // rejects fractions, not truncated
+                    } else if (seedValue instanceof String seedString) {
+                        seed = Long.parseLong(seedString.trim());
+                    } else if (seedValue != null) {
+                        throw new NumberFormatException();
+                    }
+                } catch (NumberFormatException | ArithmeticException e) {
+                    response.status(400);
+                    return gson.toJson(Map.of("error", "Invalid seed " + seedValue + ": expected a whole number"));
+                }
             }
             
-            DES simulation = new DES();
-            
-            // Configure simulation based on parameters
-            if (!hyperparameters.isEmpty()) {
-                simulation.setHyperparameters(hyperparameters);
+            // The hyperparameters and arrival function are config.json overrides, applied to a configuration of this
+            // run only; an unknown arrival function is rejected when the simulation is set up
+            Map<String, Object> overrides = new HashMap<>(hyperparameters);
+            if (arrivalFunction != null) {
+                overrides.put("defaultArrivalFunction", arrivalFunction);
+            }
+            DES simulation;
+            try {
+                RunConfig runConfig = RunConfig.defaults().withHyperparameters(overrides);
+                simulation = new DES(seed != null ? seed : RandomStreams.withRandomSeed().getSeed(), runConfig);
+            } catch (IllegalArgumentException e) {
+                response.status(400);
+                return gson.toJson(Map.of("error", e.getMessage()));
             }
             
+            // Configure simulation based on parameters
             if (triageLevel != null && !triageLevel.isEmpty()) {
                 try {
                     Patient.TriageLevel triage = Patient.TriageLevel.valueOf(triageLevel.toUpperCase());
@@ -112,8 +147,15 @@ public class WebServer {
                 }
             }
             
-            simulation.setScenarioType(arrivalFunction);
             simulation.setTriageClassifier(triageClassifier);
+            if (dispatchPolicy != null && !dispatchPolicy.isEmpty()) {
+                try {
+                    simulation.setDispatchPolicy(DispatchPolicy.valueOf(dispatchPolicy.toUpperCase()));
+                } catch (IllegalArgumentException e) {
+                    // Invalid dispatch policy, keep the configured one
+                }
+            }
+            simulation.setRecordHourlyData(true);
             simulation.start(Duration.ofDays(days));
             
             lastSimulation = simulation;
@@ -121,9 +163,11 @@ public class WebServer {
             // Prepare response with simulation results
             Map<String, Object> result = new HashMap<>();
             result.put("success", true);
-            result.put("patientsProcessed", simulation.getTreatedPatients().size());
+            result.put("patientsProcessed", simulation.getPatientsTreated());
             result.put("patientsRejected", simulation.getPatientsRejected());
+            result.put("patientsLeftWithoutBeingSeen", simulation.getPatientsLeftWithoutBeingSeen());
             result.put("simulationTime", days);
+            result.put("seed", String.valueOf(simulation.getStreams().getSeed()));
             result.put("hasChartData", true);
             
             return gson.toJson(result);
@@ -135,7 +179,7 @@ public class WebServer {
                 return gson.toJson(Map.of("error", "No simulation data available. Run a simulation first."));
             }
             
-            int[][] data = lastSimulation.getData();
+            ProbeRecorder data = lastSimulation.getHourlyData();
             
             // Transform to a format better for JavaScript charting
             Map<String, Object> result = new HashMap<>();
@@ -144,13 +188,24 @@ public class WebServer {
             List<Integer> waiting = new ArrayList<>();
             List<Integer> treating = new ArrayList<>();
             List<Integer> openRooms = new ArrayList<>();
+            Map<String, List<Integer>> waitingByTriage = new LinkedHashMap<>();
+            Map<String, List<Integer>> leftWithoutBeingSeenByTriage = new LinkedHashMap<>();
+            for (Patient.TriageLevel level : Patient.TriageLevel.values()) {
+                waitingByTriage.put(level.name(), new ArrayList<>());
+                leftWithoutBeingSeenByTriage.put(level.name(), new ArrayList<>());
+            }
             
-            for (int i = 0; i < data[0].length; i++) {
-                hours.add(data[0][i]);
-                arrivals.add(data[1][i]);
-                waiting.add(data[2][i]);
-                treating.add(data[3][i]);
-                openRooms.add(data[4][i]);
+            for (int i = 0; i < data.size(); i++) {
+                hours.add((int) (data.getTime(i) / 3600)); // each sample closes the hour it covers, numbered from 1 as in the CSV log
+                arrivals.add((int) data.get(i, "arrivals"));
+                waiting.add((int) data.get(i, "waiting"));
+                treating.add((int) data.get(i, "treating"));
+                openRooms.add((int) data.get(i, "rooms.available"));
+                for (Patient.TriageLevel level : Patient.TriageLevel.values()) {
+                    waitingByTriage.get(level.name()).add((int) data.get(i, "waiting." + level.name()));
+                    leftWithoutBeingSeenByTriage.get(level.name())
+                            .add((int) data.get(i, "leftWithoutBeingSeen." + level.name()));
+                }
             }
             
             result.put("hours", hours);
@@ -158,6 +213,8 @@ public class WebServer {
             result.put("waiting", waiting);
             result.put("treating", treating);
             result.put("openRooms", openRooms);
+            result.put("waitingByTriage", waitingByTriage);
+            result.put("leftWithoutBeingSeenByTriage", leftWithoutBeingSeenByTriage);
             
             return gson.toJson(result);
         });
@@ -171,10 +228,10 @@ public class WebServer {
             // Prepare complete statistics about the simulation
             Map<String, Object> result = new HashMap<>();
             result.put("totalPatients", 
-                lastSimulation.getTreatedPatients().size() + 
+                lastSimulation.getPatientsTreated() + 
                 lastSimulation.getTreatingPatients().size() + 
                 lastSimulation.getPatientsRejected());
-            result.put("patientsProcessed", lastSimulation.getTreatedPatients().size());
+            result.put("patientsProcessed", lastSimulation.getPatientsTreated());
             result.put("patientsRejected", lastSimulation.getPatientsRejected());
             
             return gson.toJson(result);
@@ -195,9 +252,10 @@ public class WebServer {
             triageCounts.put("BLUE", 0);
             
             // Count triage levels in treated patients
-            for (Patient patient : lastSimulation.getTreatedPatients()) {
-                String triage = patient.getTriageLevel().name();
-                triageCounts.put(triage, triageCounts.getOrDefault(triage, 0) + 1);
+            PatientStatistics statistics = lastSimulation.getPatientStatistics();
+            for (Patient.TriageLevel level : Patient.TriageLevel.values()) {
+                long treated = statistics.get(PatientStatistics.Metric.TREATMENT, level).getCount();
+                triageCounts.put(level.name(), triageCounts.getOrDefault(level.name(), 0) + (int) treated);
             }
             
             // Count triage levels in treating patients
@@ -213,10 +271,11 @@ public class WebServer {
         
         // New endpoints for configuration
         Spark.get("/api/config/hyperparameters", (request, response) -> {
+            Config config = RunConfig.defaults().getConfig();
             Map<String, Object> defaultParams = new HashMap<>();
-            defaultParams.put("interarrivalTime", 15.0);
-            defaultParams.put("treatmentCapacity", 15);
-            defaultParams.put("waitingCapacity", 30);
+            defaultParams.put("interarrivalTime", config.getInterarrivalTimeMins());
+            defaultParams.put("treatmentCapacity", config.getERTreatmentRooms());
+            defaultParams.put("waitingCapacity", config.getERCapacity());
             return gson.toJson(defaultParams);
         });
         
@@ -259,7 +318,7 @@ public class WebServer {
             List<Map<String, String>> scenarios = new ArrayList<>();
             
             try {
-                Config config = Config.getInstance();
+                Config config = RunConfig.defaults().getConfig();
                 Map<String, String> arrivalFunctions = config.getPatientArrivalFunctions();
                 
                 for (Map.Entry<String, String> entry : arrivalFunctions.entrySet()) {
@@ -296,24 +355,22 @@ public class WebServer {
             Map<String, Object> utilities = new HashMap<>();
             
             // Calculate room utilization
-            int[][] data = lastSimulation.getData();
-            if (data != null && data.length > 4) {
+            double[] roomUtilization = lastSimulation.getHourlyData().getSeries("rooms.utilization");
+            if (roomUtilization.length > 0) {
                 double avgUtilization = 0.0;
-                int totalRooms = 15; // Default from config
                 
-                for (int i = 0; i < data[3].length; i++) {
-                    int treatingPatients = data[3][i];
-                    avgUtilization += (double) treatingPatients / totalRooms;
+                for (double hourlyUtilization : roomUtilization) {
+                    avgUtilization += hourlyUtilization;
                 }
-                avgUtilization = avgUtilization / data[3].length * 100;
+                avgUtilization = avgUtilization / roomUtilization.length * 100;
                 
                 utilities.put("roomUtilization", Math.round(avgUtilization * 100.0) / 100.0);
             }
             
             // Calculate throughput
-            int totalPatients = lastSimulation.getTreatedPatients().size() + lastSimulation.getPatientsRejected();
+            int totalPatients = lastSimulation.getPatientsTreated() + lastSimulation.getPatientsRejected();
             double throughput = totalPatients > 0 ? 
-                (double) lastSimulation.getTreatedPatients().size() / totalPatients * 100 : 0;
+                (double) lastSimulation.getPatientsTreated() / totalPatients * 100 : 0;
             utilities.put("throughput", Math.round(throughput * 100.0) / 100.0);
             
             // Calculate rejection rate
@@ -0,0 +1,74 @@
+package benchmarks;
+
+import org.mariuszgromada.math.mxparser.Argument;
+import org.mariuszgromada.math.mxparser.Expression;
+import org.mariuszgromada.math.mxparser.License;
+import simulation.ArrivalFunctionCompiler;
+import simulation.Config;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Checks every arrival function in config.json against mXparser over a year of hourly t values (0..8760), and
+ * compares evaluation throughput of the two. Exits with status 1 if any compiled function disagrees with mXparser
+ * beyond the tolerance.
+ */
+public class ArrivalFunctionBenchmark {
+    private static final int HOURS_PER_YEAR = 8760;
+    private static final double TOLERANCE = 1e-9;
+    private static volatile double sink; // keeps the JIT from discarding the timed evaluations
+
+    public static void main(String[] args) throws IOException {
+        License.iConfirmNonCommercialUse("KEN12");
+        Config config = Config.getInstance();
+        boolean allMatch = true;
+
+        System.out.printf("%-22s %12s %15s %15s%n", "function", "max error", "mXparser ev/s", "compiled ev/s");
+        for (Map.Entry<String, String> entry : config.getPatientArrivalFunctions().entrySet()) {
+            Argument t = new Argument("t=0");
+            Expression expression = new Expression(entry.getValue(), t);
+            DoubleUnaryOperator compiled = ArrivalFunctionCompiler.compile(entry.getValue());
+
+            double maxError = 0;
+            for (int hour = 0; hour <= HOURS_PER_YEAR; hour++) {
+                t.setArgumentValue(hour);
+                double expected = expression.calculate();
+                double actual = compiled.applyAsDouble(hour);
+                double error = Math.abs(expected - actual) / Math.max(1, Math.abs(expected));
+                maxError = Math.max(maxError, error);
+            }
+            if (maxError > TOLERANCE) {
+                allMatch = false;
+            }
+
+            double total = 0;
+            long start = System.nanoTime();
+            for (int hour = 0; hour <= HOURS_PER_YEAR; hour++) {
+                t.setArgumentValue(hour);
+                total += expression.calculate();
+            }
+            double interpretedRate = (HOURS_PER_YEAR + 1) / ((System.nanoTime() - start) / 1e9);
+
+            int repetitions = 100;
+            start = System.nanoTime();
+            for (int r = 0; r < repetitions; r++) {
+                for (int hour = 0; hour <= HOURS_PER_YEAR; hour++) {
+                    total += compiled.applyAsDouble(hour);
+                }
+            }
+            sink = total;
+            double compiledRate = repetitions * (HOURS_PER_YEAR + 1) / ((System.nanoTime() - start) / 1e9);
+
+            System.out.printf("%-22s %12.2e %15.0f %15.0f%n", entry.getKey(), maxError, interpretedRate,
+                    compiledRate);
+        }
+
+        if (!allMatch) {
+            System.out.println("Compiled arrival functions differ from mXparser by more than " + TOLERANCE);
+            System.exit(1);
+        }
+        System.out.println("All compiled arrival functions match mXparser within " + TOLERANCE);
+    }
+}
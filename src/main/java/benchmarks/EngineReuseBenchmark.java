@@ -0,0 +1,94 @@
+package benchmarks;
+
+import org.mariuszgromada.math.mxparser.License;
+import simulation.DES;
+import simulation.RandomStreams;
+import simulation.RunConfig;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures the throughput of many short runs (1 to 7 days) on one thread, each run on a new {@link DES} against one
+ * simulation reused with {@link DES#reset(long, RunConfig)}, as the batch and sweep runners now do, and the memory
+ * allocated per run. Exits with status 1 if a reused simulation gives different results than a new one with the same
+ * seed.
+ */
+public class EngineReuseBenchmark {
+    private static final int RUNS = 2_000;
+    private static final int MAX_DAYS = 7;
+    private static final long SEED = 42;
+
+    public static void main(String[] args) throws IOException {
+        License.iConfirmNonCommercialUse("KEN12");
+        RunConfig runConfig = RunConfig.defaults().withOverrides(Map.of("outputFormats", List.of()));
+
+        long[] fresh = new long[RUNS];
+        long[] reused = new long[RUNS];
+        runFresh(runConfig, fresh); // warm up both paths
+        runReused(runConfig, reused);
+
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        runFresh(runConfig, fresh);
+        double freshRate = RUNS / ((System.nanoTime() - start) / 1e9);
+        double freshBytes = (double) (allocatedBytes() - allocated) / RUNS;
+
+        allocated = allocatedBytes();
+        start = System.nanoTime();
+        runReused(runConfig, reused);
+        double reusedRate = RUNS / ((System.nanoTime() - start) / 1e9);
+        double reusedBytes = (double) (allocatedBytes() - allocated) / RUNS;
+
+        System.out.printf("new DES per run: %,10.1f runs/s, %,12.0f bytes allocated/run%n", freshRate, freshBytes);
+        System.out.printf("reset DES:       %,10.1f runs/s, %,12.0f bytes allocated/run (%.1fx)%n", reusedRate,
+                reusedBytes, reusedRate / freshRate);
+
+        for (int i = 0; i < RUNS; i++) {
+            if (fresh[i] != reused[i]) {
+                System.out.println("Run " + i + " differs between a new and a reset simulation");
+                System.exit(1);
+            }
+        }
+        System.out.println("Reset simulations match new ones in all " + RUNS + " runs");
+    }
+
+    private static void runFresh(RunConfig runConfig, long[] checksums) throws IOException {
+        for (int i = 0; i < RUNS; i++) {
+            DES des = new DES(seed(i), runConfig);
+            des.setQuiet(true);
+            checksums[i] = run(des, i);
+        }
+    }
+
+    private static void runReused(RunConfig runConfig, long[] checksums) throws IOException {
+        DES des = new DES(seed(0), runConfig);
+        des.setQuiet(true);
+        for (int i = 0; i < RUNS; i++) {
+            if (i > 0) {
+                des.reset(seed(i), runConfig);
+            }
+            checksums[i] = run(des, i);
+        }
+    }
+
+    /**
+     * Runs the i-th short run and sums up its results.
+     */
+    private static long run(DES des, int i) throws IOException {
+        des.start(Duration.ofDays(1 + i % MAX_DAYS));
+        return 31 * (31 * (31L * des.getEventsProcessed() + des.getPatientsTreated()) + des.getPatientsRejected())
+                + des.getPatientsLeftWithoutBeingSeen();
+    }
+
+    private static long seed(int i) {
+        return RandomStreams.replicationSeed(SEED, i);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+}
@@ -0,0 +1,72 @@
+package benchmarks;
+
+import simulation.Event;
+import simulation.FutureEventSet;
+
+import java.time.Duration;
+import java.util.LinkedList;
+import java.util.Random;
+
+/**
+ * Microbenchmark comparing the old sort-on-every-event LinkedList against {@link FutureEventSet}.
+ * <p>
+ * Uses the classic "hold" model: the set is filled with n pending events, then each operation removes the
+ * earliest event and schedules a new one a random delay later, so the set size stays at n.
+ * </p>
+ */
+public class EventSetBenchmark {
+    private static final int[] SIZES = {10_000, 100_000, 1_000_000};
+    private static final long HORIZON_SECONDS = Duration.ofDays(28).toSeconds();
+    private static final double MEAN_DELAY_SECONDS = 3600;
+
+    public static void main(String[] args) {
+        System.out.printf("%-10s %20s %20s %10s%n", "pending", "LinkedList+sort ev/s", "FutureEventSet ev/s", "speedup");
+        for (int n : SIZES) {
+            // The legacy structure re-sorts all n events per operation, so it gets far fewer operations.
+            double legacy = benchmarkLinkedList(n, Math.max(20, 20_000_000 / n));
+            double heap = benchmarkEventSet(n, 1_000_000);
+            System.out.printf("%-10d %20.0f %20.0f %9.1fx%n", n, legacy, heap, heap / legacy);
+        }
+    }
+
+    private static double benchmarkLinkedList(int pending, int operations) {
+        Random random = new Random(42);
+        LinkedList<Event> events = new LinkedList<>();
+        for (int i = 0; i < pending; i++) {
+            events.add(randomEvent(random, 0));
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            events.sort(null);
+            Event e = events.removeFirst();
+            events.add(randomEvent(random, e.getTime()));
+        }
+        return operations / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static double benchmarkEventSet(int pending, int operations) {
+        Random random = new Random(42);
+        FutureEventSet events = new FutureEventSet(pending);
+        for (int i = 0; i < pending; i++) {
+            events.add(randomEvent(random, 0));
+        }
+        // Warm up so the JIT has compiled the heap operations before timing
+        for (int i = 0; i < operations / 10; i++) {
+            Event e = events.poll();
+            events.add(randomEvent(random, e.getTime()));
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            Event e = events.poll();
+            events.add(randomEvent(random, e.getTime()));
+        }
+        return operations / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static Event randomEvent(Random random, long now) {
+        long time = now == 0
+                ? (long) (random.nextDouble() * HORIZON_SECONDS)
+                : now + (long) (-MEAN_DELAY_SECONDS * Math.log(1 - random.nextDouble()));
+        return new Event(time, Event.Type.RELEASE, null);
+    }
+}
@@ -0,0 +1,73 @@
+package benchmarks;
+
+import simulation.JourneyLog;
+import simulation.JourneyLogReader;
+import simulation.JourneyLogWriter;
+import simulation.Patient;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.SplittableRandom;
+
+/**
+ * Benchmark of the {@link JourneyLog}: writes synthetic journeys shaped like a long ER run (arrivals every few
+ * minutes, waits and treatments of minutes to hours, a few rejections and walk-outs), then scans them back, in full
+ * and for a one-week window.
+ */
+public class JourneyLogBenchmark {
+    private static final int JOURNEYS = 5_000_000;
+    private static final Patient.TriageLevel[] LEVELS = Patient.TriageLevel.values();
+
+    public static void main(String[] args) throws IOException {
+        File file = File.createTempFile("journeys", JourneyLog.EXTENSION);
+        SplittableRandom random = new SplittableRandom(42);
+        long checksum = 0;
+
+        long start = System.nanoTime();
+        try (JourneyLogWriter writer = new JourneyLogWriter(file, 42)) {
+            long arrival = 0;
+            for (int i = 0; i < JOURNEYS; i++) {
+                arrival += 60 * (1 + random.nextInt(10));
+                Patient.TriageLevel level = LEVELS[random.nextInt(LEVELS.length)];
+                int kind = random.nextInt(100);
+                if (kind < 3) {
+                    writer.record(level, JourneyLog.Outcome.REJECTED, arrival, -1, arrival);
+                    checksum += arrival;
+                } else if (kind < 8) {
+                    long departure = arrival + 60L * random.nextInt(240);
+                    writer.record(level, JourneyLog.Outcome.LEFT_WITHOUT_BEING_SEEN, arrival, -1, departure);
+                    checksum += departure;
+                } else {
+                    long treatmentStart = arrival + 60L * random.nextInt(120);
+                    long departure = treatmentStart + 60L * (10 + random.nextInt(180));
+                    writer.record(level, JourneyLog.Outcome.TREATED, arrival, treatmentStart, departure);
+                    checksum += departure;
+                }
+            }
+        }
+        double writeSeconds = (System.nanoTime() - start) / 1e9;
+        long bytes = Files.size(file.toPath());
+        System.out.printf("write: %,.0f journeys/s, %.2f bytes/journey%n", JOURNEYS / writeSeconds, (double) bytes / JOURNEYS);
+
+        JourneyLogReader reader = JourneyLogReader.open(file.toPath());
+        long[] sum = new long[1];
+        for (int pass = 0; pass < 3; pass++) { // the last pass is timed, after the JIT has warmed up
+            sum[0] = 0;
+            start = System.nanoTime();
+            long scanned = reader.scan((level, outcome, arrival, treatmentStart, departure) -> sum[0] += departure);
+            double scanSeconds = (System.nanoTime() - start) / 1e9;
+            if (pass == 2) {
+                System.out.printf("full scan: %,.0f journeys/s (checksum %s)%n", scanned / scanSeconds,
+                        sum[0] == checksum ? "ok" : "MISMATCH");
+            }
+        }
+
+        long week = 7 * 24 * 3600;
+        start = System.nanoTime();
+        long inWindow = reader.scan(10 * week, 11 * week, (level, outcome, arrival, treatmentStart, departure) -> {});
+        System.out.printf("one-week window: %,d journeys in %.2f ms%n", inWindow, (System.nanoTime() - start) / 1e6);
+
+        Files.delete(file.toPath());
+    }
+}
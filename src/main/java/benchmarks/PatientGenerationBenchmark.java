@@ -0,0 +1,136 @@
+package benchmarks;
+
+import org.apache.commons.math3.distribution.NormalDistribution;
+import simulation.Patient;
+import simulation.PatientGenerator;
+import simulation.RandomStreams;
+import simulation.TreatmentTimeSampler;
+import simulation.triage_classifiers.CTAS;
+import simulation.triage_classifiers.TriageClassifier;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Measures patient-generation throughput of {@link PatientGenerator} against the previous per-patient code path,
+ * which drew a SecureRandom UUID, built the name eagerly, re-allocated the diagnosis table and constructed a
+ * commons-math NormalDistribution for every patient. Also measures parallel generation of patients whose ids are
+ * used, with ids from {@link UUID#randomUUID()} against ids derived from the patient's serial.
+ */
+public class PatientGenerationBenchmark {
+    private static final int PATIENTS = 2_000_000;
+    private static final int THREADS = 4;
+    private static final Map<Patient.TriageLevel, Double> AVG_TREATMENT_TIMES = Map.of(
+            Patient.TriageLevel.RED, 180.0,
+            Patient.TriageLevel.ORANGE, 120.0,
+            Patient.TriageLevel.YELLOW, 90.0,
+            Patient.TriageLevel.GREEN, 45.0,
+            Patient.TriageLevel.BLUE, 15.0
+    );
+    private static volatile long sink; // keeps the JIT from discarding generated patients
+
+    public static void main(String[] args) {
+        TriageClassifier classifier = new CTAS();
+        Random legacyRandom = new Random(42);
+        PatientGenerator generator = new PatientGenerator(new RandomStreams(42), classifier,
+                new TreatmentTimeSampler(AVG_TREATMENT_TIMES, 0.25), 5, 99);
+
+        // Warm up both paths
+        for (int i = 0; i < PATIENTS / 10; i++) {
+            legacyPatient(legacyRandom, classifier, i);
+            generator.generate(i);
+        }
+
+        long total = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < PATIENTS; i++) {
+            total += legacyPatient(legacyRandom, classifier, i).getTreatmentTime();
+        }
+        double legacyRate = PATIENTS / ((System.nanoTime() - start) / 1e9);
+
+        start = System.nanoTime();
+        for (int i = 0; i < PATIENTS; i++) {
+            total += generator.generate(i).getTreatmentTime();
+        }
+        double generatorRate = PATIENTS / ((System.nanoTime() - start) / 1e9);
+        sink = total;
+
+        System.out.printf("legacy:           %,12.0f patients/s%n", legacyRate);
+        System.out.printf("PatientGenerator: %,12.0f patients/s (%.1fx)%n", generatorRate, generatorRate / legacyRate);
+
+        // Patients whose ids are needed, generated by parallel replications
+        double randomIdRate = parallelIds(classifier, true);
+        double serialIdRate = parallelIds(classifier, false);
+        System.out.printf("%d threads with ids, UUID.randomUUID(): %,12.0f patients/s%n", THREADS, randomIdRate);
+        System.out.printf("%d threads with ids, serial-derived:    %,12.0f patients/s (%.1fx)%n", THREADS, serialIdRate,
+                serialIdRate / randomIdRate);
+    }
+
+    /**
+     * Generates patients on several threads, one generator each as in parallel replications, and asks each patient
+     * for their id.
+     */
+    private static double parallelIds(TriageClassifier classifier, boolean randomUuid) {
+        Thread[] threads = new Thread[THREADS];
+        long[] totals = new long[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            PatientGenerator generator = new PatientGenerator(new RandomStreams(42 + t), classifier,
+                    new TreatmentTimeSampler(AVG_TREATMENT_TIMES, 0.25), 5, 99);
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < PATIENTS / THREADS; i++) {
+                    Patient patient = generator.generate(i);
+                    UUID id = randomUuid ? UUID.randomUUID() : patient.getId();
+                    totals[thread] += id.getLeastSignificantBits();
+                }
+            });
+        }
+        long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+        double rate = PATIENTS / ((System.nanoTime() - start) / 1e9);
+        sink = totals[0];
+        return rate;
+    }
+
+    private static Patient legacyPatient(Random random, TriageClassifier classifier, long arrivalTime) {
+        UUID id = UUID.randomUUID();
+        String name = "Patient" + Math.abs(id.hashCode() % 10000);
+        int age = 5 + random.nextInt(95);
+        double[] diagnosisProbs = {
+                3.72908417e-02, 3.45021445e-02, 6.44438692e-04, 1.42655116e-01,
+                4.82845207e-03, 2.06028792e-01, 4.42272662e-02, 1.19613046e-02,
+                6.28956682e-06, 9.97375315e-02, 2.83615920e-02, 7.33431225e-02,
+                1.14778789e-01, 4.28604950e-02, 4.97795023e-02, 4.95869448e-02,
+                5.94073777e-02
+        };
+        double r = random.nextDouble();
+        double cumulative = 0.0;
+        int diagnosis = diagnosisProbs.length;
+        for (int i = 0; i < diagnosisProbs.length; i++) {
+            cumulative += diagnosisProbs[i];
+            if (r < cumulative) {
+                diagnosis = i + 1;
+                break;
+            }
+        }
+        Patient.TriageLevel triageLevel = classifier.classify(diagnosis);
+        if (random.nextDouble() < 0.05 && triageLevel != Patient.TriageLevel.RED) {
+            triageLevel = Patient.TriageLevel.values()[triageLevel.ordinal() - 1];
+        }
+        double mean = AVG_TREATMENT_TIMES.get(triageLevel);
+        NormalDistribution treatmentTimeDist = new NormalDistribution(mean, 0.25 * mean);
+        long treatmentTime = 60L * (long) treatmentTimeDist.sample();
+        return new Patient(id, name, age, triageLevel, arrivalTime, treatmentTime);
+    }
+}
@@ -0,0 +1,127 @@
+package benchmarks;
+
+import simulation.Patient;
+import simulation.PatientProfileSampler;
+import simulation.triage_classifiers.CTAS;
+import simulation.triage_classifiers.ESI;
+import simulation.triage_classifiers.MTS;
+import simulation.triage_classifiers.TriageClassifier;
+
+import java.util.SplittableRandom;
+
+/**
+ * Checks {@link PatientProfileSampler} against the per-patient code path it replaced, a cumulative scan over the
+ * diagnosis frequencies followed by the classifier and a separate 5% escalation draw, for every classifier: the
+ * sampler is evaluated on an even grid of u values and the resulting joint distribution of diagnosis and final triage
+ * level is compared with the exact distribution of the old path. Also compares the sampling throughput of the two.
+ * Exits with status 1 if any probability differs by more than the tolerance.
+ */
+public class PatientProfileBenchmark {
+    private static final int GRID = 100_000_000;
+    private static final double TOLERANCE = 1e-7; // a few grid cells per (diagnosis, triage level) boundary
+    private static final int SAMPLES = 20_000_000;
+    private static final double ESCALATION_PROBABILITY = 0.05;
+    private static final double[] DIAGNOSIS_PROBS = {
+            3.72908417e-02, 3.45021445e-02, 6.44438692e-04, 1.42655116e-01,
+            4.82845207e-03, 2.06028792e-01, 4.42272662e-02, 1.19613046e-02,
+            6.28956682e-06, 9.97375315e-02, 2.83615920e-02, 7.33431225e-02,
+            1.14778789e-01, 4.28604950e-02, 4.97795023e-02, 4.95869448e-02,
+            5.94073777e-02
+    };
+    private static final Patient.TriageLevel[] LEVELS = Patient.TriageLevel.values();
+    private static volatile long sink; // keeps the JIT from discarding the timed samples
+
+    public static void main(String[] args) {
+        boolean allMatch = true;
+        System.out.printf("%-6s %12s %15s %15s%n", "", "max error", "legacy/s", "sampler/s");
+        for (TriageClassifier classifier : new TriageClassifier[]{new CTAS(), new ESI(), new MTS()}) {
+            double[][] expected = legacyDistribution(classifier);
+            PatientProfileSampler sampler = PatientProfileSampler.forClassifier(classifier);
+            long[][] counts = new long[DIAGNOSIS_PROBS.length][LEVELS.length];
+            for (int i = 0; i < GRID; i++) {
+                int profile = sampler.sample((i + 0.5) / GRID);
+                counts[sampler.diagnosis(profile) - 1][sampler.triageLevel(profile).ordinal()]++;
+            }
+            double maxError = 0;
+            for (int d = 0; d < DIAGNOSIS_PROBS.length; d++) {
+                for (int level = 0; level < LEVELS.length; level++) {
+                    maxError = Math.max(maxError, Math.abs((double) counts[d][level] / GRID - expected[d][level]));
+                }
+            }
+            if (maxError > TOLERANCE) {
+                allMatch = false;
+            }
+
+            SplittableRandom random = new SplittableRandom(42);
+            long total = 0;
+            for (int i = 0; i < SAMPLES / 10; i++) { // warm up both paths
+                total += legacyProfile(random, classifier).ordinal() + sampler.sample(random.nextDouble());
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < SAMPLES; i++) {
+                total += legacyProfile(random, classifier).ordinal();
+            }
+            double legacyRate = SAMPLES / ((System.nanoTime() - start) / 1e9);
+            start = System.nanoTime();
+            for (int i = 0; i < SAMPLES; i++) {
+                total += sampler.triageLevel(sampler.sample(random.nextDouble())).ordinal();
+            }
+            double samplerRate = SAMPLES / ((System.nanoTime() - start) / 1e9);
+            sink = total;
+
+            System.out.printf("%-6s %12.2e %15.0f %15.0f%n", classifier.getClass().getSimpleName(), maxError,
+                    legacyRate, samplerRate);
+        }
+
+        if (!allMatch) {
+            System.out.println("PatientProfileSampler differs from the cumulative scan by more than " + TOLERANCE);
+            System.exit(1);
+        }
+        System.out.println("PatientProfileSampler matches the cumulative scan within " + TOLERANCE
+                + " for every classifier");
+    }
+
+    /**
+     * The exact joint distribution of diagnosis and final triage level of the old path, whose scan falls back to the
+     * last diagnosis if the running sum never exceeds the draw.
+     *
+     * @return The probabilities, indexed by diagnosis index and triage level ordinal.
+     */
+    private static double[][] legacyDistribution(TriageClassifier classifier) {
+        double[][] distribution = new double[DIAGNOSIS_PROBS.length][LEVELS.length];
+        double previous = 0.0;
+        double cumulative = 0.0;
+        for (int d = 0; d < DIAGNOSIS_PROBS.length; d++) {
+            cumulative += DIAGNOSIS_PROBS[d];
+            double capped = d == DIAGNOSIS_PROBS.length - 1 ? 1.0 : Math.min(cumulative, 1.0);
+            double probability = capped - previous;
+            previous = capped;
+            Patient.TriageLevel level = classifier.classify(d + 1);
+            distribution[d][level.ordinal()] += probability * (1 - ESCALATION_PROBABILITY);
+            distribution[d][escalate(level).ordinal()] += probability * ESCALATION_PROBABILITY;
+        }
+        return distribution;
+    }
+
+    /**
+     * The old per-patient path: a cumulative scan for the diagnosis, the classifier, and a separate escalation draw.
+     */
+    private static Patient.TriageLevel legacyProfile(SplittableRandom random, TriageClassifier classifier) {
+        double r = random.nextDouble();
+        double cumulative = 0.0;
+        int diagnosis = DIAGNOSIS_PROBS.length;
+        for (int i = 0; i < DIAGNOSIS_PROBS.length; i++) {
+            cumulative += DIAGNOSIS_PROBS[i];
+            if (r < cumulative) {
+                diagnosis = i + 1;
+                break;
+            }
+        }
+        Patient.TriageLevel level = classifier.classify(diagnosis);
+        return random.nextDouble() < ESCALATION_PROBABILITY ? escalate(level) : level;
+    }
+
+    private static Patient.TriageLevel escalate(Patient.TriageLevel level) {
+        return level == Patient.TriageLevel.RED ? level : LEVELS[level.ordinal() - 1];
+    }
+}
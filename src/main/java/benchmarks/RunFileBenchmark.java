@@ -0,0 +1,100 @@
+package benchmarks;
+
+import simulation.RunFile;
+import simulation.RunFileImporter;
+import simulation.RunFileReader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark comparing loading the hourly logs under raw_data/ by parsing the CSVs against reading the same logs
+ * converted to {@link RunFile}s.
+ * <p>
+ * Each pass loads every log and sums every column, so both sides touch all values.
+ * </p>
+ */
+public class RunFileBenchmark {
+    private static final int PASSES = 20;
+
+    public static void main(String[] args) throws IOException {
+        Path source = Paths.get(args.length > 0 ? args[0] : "raw_data");
+        List<Path> csvs;
+        try (Stream<Path> files = Files.walk(source)) {
+            csvs = files.filter(file -> file.toString().endsWith(".csv")).sorted().collect(Collectors.toList());
+        }
+        Path target = Files.createTempDirectory("runfiles");
+        List<Path> runs = new ArrayList<>();
+        long csvBytes = 0;
+        long runBytes = 0;
+        for (Path csv : csvs) {
+            Path run = target.resolve(runs.size() + RunFile.EXTENSION);
+            RunFileImporter.convert(csv, run);
+            runs.add(run);
+            csvBytes += Files.size(csv);
+            runBytes += Files.size(run);
+        }
+        System.out.printf("%d logs: %d KB of CSV, %d KB of run files%n", csvs.size(), csvBytes / 1024, runBytes / 1024);
+
+        // Warm up so the JIT has compiled both paths before timing
+        double checksum = 0;
+        for (int i = 0; i < PASSES / 4; i++) {
+            checksum += loadCsvs(csvs) - loadRuns(runs);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < PASSES; i++) {
+            checksum += loadCsvs(csvs);
+        }
+        double csvMillis = (System.nanoTime() - start) / 1e6 / PASSES;
+        start = System.nanoTime();
+        for (int i = 0; i < PASSES; i++) {
+            checksum -= loadRuns(runs);
+        }
+        double runMillis = (System.nanoTime() - start) / 1e6 / PASSES;
+
+        System.out.printf("%-10s %12s%n", "format", "ms/pass");
+        System.out.printf("%-10s %12.2f%n", "CSV", csvMillis);
+        System.out.printf("%-10s %12.2f%n", "run file", runMillis);
+        System.out.printf("speedup %.1fx (checksum difference %.1f)%n", csvMillis / runMillis, checksum);
+
+        for (Path run : runs) {
+            Files.delete(run);
+        }
+        Files.delete(target);
+    }
+
+    private static double loadCsvs(List<Path> csvs) throws IOException {
+        double sum = 0;
+        for (Path csv : csvs) {
+            List<String> lines = Files.readAllLines(csv);
+            for (int line = 1; line < lines.size(); line++) {
+                if (lines.get(line).isBlank()) {
+                    continue;
+                }
+                for (String field : lines.get(line).split(",")) {
+                    sum += Double.parseDouble(field);
+                }
+            }
+        }
+        return sum;
+    }
+
+    private static double loadRuns(List<Path> runs) throws IOException {
+        double sum = 0;
+        for (Path run : runs) {
+            RunFileReader reader = RunFileReader.open(run);
+            for (String name : reader.getColumnNames()) {
+                for (double value : reader.getSeries(name)) {
+                    sum += value;
+                }
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,149 @@
+package experiments;
+
+import lombok.Getter;
+import org.apache.commons.math3.distribution.TDistribution;
+import simulation.PatientStatistics;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The replications of a batch merged into across-replication estimates: for every end-of-run metric and every hour of
+ * every requested series, the mean over the replications with a Student-t confidence interval, plus the patient
+ * statistics of all replications together.
+ */
+@Getter
+public class BatchResult {
+    /** The confidence level of the reported intervals. */
+    public static final double CONFIDENCE = 0.95;
+
+    /**
+     * A mean over replications and its confidence interval. With a single replication the interval is unknown and
+     * both bounds are NaN.
+     */
+    @Getter
+    public static class Estimate {
+        private final double mean;
+        private final double low;
+        private final double high;
+
+        Estimate(double mean, double low, double high) {
+            this.mean = mean;
+            this.low = low;
+            this.high = high;
+        }
+
+        public double getHalfWidth() {
+            return (high - low) / 2;
+        }
+    }
+
+    private final List<ReplicationResult> replications;
+    private final long wallNanos;
+    private final Map<String, Estimate> metrics = new LinkedHashMap<>();
+    private final Map<String, Estimate[]> series = new LinkedHashMap<>();
+    private final PatientStatistics patientStatistics = new PatientStatistics();
+
+    /**
+     * Merges the replications of a batch.
+     *
+     * @param replications The replications, in index order.
+     * @param wallNanos     The wall-clock time of the whole batch.
+     */
+    public BatchResult(List<ReplicationResult> replications, long wallNanos) {
+        this.replications = replications;
+        this.wallNanos = wallNanos;
+        int n = replications.size();
+        double t = criticalValue(n);
+        double[] values = new double[n];
+        for (String metric : ReplicationResult.METRICS) {
+            for (int r = 0; r < n; r++) {
+                values[r] = replications.get(r).getMetrics().get(metric);
+            }
+            metrics.put(metric, estimate(values, t));
+        }
+        for (String name : replications.get(0).getSeries().keySet()) {
+            // Replications of the same duration have the same number of hours; a shorter one would end the series
+            int hours = Integer.MAX_VALUE;
+            for (ReplicationResult replication : replications) {
+                hours = Math.min(hours, replication.getSeries().get(name).length);
+            }
+            Estimate[] estimates = new Estimate[hours];
+            for (int h = 0; h < hours; h++) {
+                for (int r = 0; r < n; r++) {
+                    values[r] = replications.get(r).getSeries().get(name)[h];
+                }
+                estimates[h] = estimate(values, t);
+            }
+            series.put(name, estimates);
+        }
+        for (ReplicationResult replication : replications) {
+            patientStatistics.merge(replication.getPatientStatistics());
+        }
+    }
+
+    /**
+     * @return The total number of events simulated by all replications.
+     */
+    public long getEvents() {
+        long events = 0;
+        for (ReplicationResult replication : replications) {
+            events += replication.getEvents();
+        }
+        return events;
+    }
+
+    /**
+     * @return The batch throughput, in simulated events per second of wall-clock time.
+     */
+    public double getEventsPerSecond() {
+        return getEvents() / (wallNanos / 1e9);
+    }
+
+    /**
+     * @return The summed run time of the replications over the wall-clock time of the batch, i.e. how many
+     * replications effectively ran at once.
+     */
+    public double getSpeedup() {
+        long replicationNanos = 0;
+        for (ReplicationResult replication : replications) {
+            replicationNanos += replication.getWallNanos();
+        }
+        return (double) replicationNanos / wallNanos;
+    }
+
+    /**
+     * @param n A number of independent observations.
+     * @return The two-sided critical value of Student's t at {@link #CONFIDENCE} for n - 1 degrees of freedom, or NaN
+     * if n is less than 2.
+     */
+    static double criticalValue(int n) {
+        return n < 2 ? Double.NaN : new TDistribution(n - 1).inverseCumulativeProbability(1 - (1 - CONFIDENCE) / 2);
+    }
+
+    /**
+     * Estimates the mean of independent observations with a Student-t confidence interval.
+     *
+     * @param values One observation per replication.
+     * @param t      The critical value for {@code values.length} observations, see {@link #criticalValue(int)}.
+     * @return The estimate.
+     */
+    static Estimate estimate(double[] values, double t) {
+        int n = values.length;
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        double mean = sum / n;
+        if (n < 2) {
+            return new Estimate(mean, Double.NaN, Double.NaN);
+        }
+        double squares = 0;
+        for (double value : values) {
+            squares += (value - mean) * (value - mean);
+        }
+        double standardError = Math.sqrt(squares / (n - 1) / n);
+        return new Estimate(mean, mean - t * standardError, mean + t * standardError);
+    }
+}
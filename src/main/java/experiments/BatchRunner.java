@@ -0,0 +1,173 @@
+package experiments;
+
+import org.mariuszgromada.math.mxparser.License;
+import simulation.Config;
+import simulation.DES;
+import simulation.RandomStreams;
+import simulation.RunConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the replications of a {@link Scenario} headless and concurrently, and reports their merged results.
+ * <p>
+ * Usage: {@code BatchRunner <scenario.json> <replications> [threads]}. The replications run on a fixed pool of
+ * worker threads, one per available processor unless given. Replication i of a batch runs with the seed
+ * {@link RandomStreams#replicationSeed(long, int)} of the scenario's seed, so it draws from its own random streams
+ * and writes its own output files (the seed is part of their names). Because the seeds do not depend on the thread
+ * that runs a replication, a batch gives the same results whatever the number of threads.
+ * </p>
+ */
+public class BatchRunner {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: BatchRunner <scenario.json> <replications> [threads]");
+            return;
+        }
+        // Confirm non-commercial use for mxparser library
+        License.iConfirmNonCommercialUse("KEN12");
+
+        Scenario scenario = Scenario.read(new File(args[0]));
+        int replications = Integer.parseInt(args[1]);
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        BatchResult result = run(scenario, replications, threads);
+        report(scenario, result);
+    }
+
+    /**
+     * Runs the replications of a scenario.
+     *
+     * @param scenario     The scenario.
+     * @param replications The number of replications.
+     * @param threads      The maximum number of replications to run at once.
+     * @return The merged results.
+     * @throws IOException If the configuration cannot be loaded or a replication fails to write its output.
+     */
+    public static BatchResult run(Scenario scenario, int replications, int threads) throws IOException {
+        if (replications < 1) {
+            throw new IllegalArgumentException("A batch needs at least one replication");
+        }
+        // Load the configuration up front, so that a broken config.json or scenario fails before any worker starts
+        RunConfig runConfig = scenario.runConfig();
+        long seed = scenario.getSeed() != null ? scenario.getSeed() : RandomStreams.withRandomSeed().getSeed();
+        System.out.println("Running " + replications + " replications of '" + scenario.getName() + "' with seed " + seed);
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, replications));
+        long start = System.nanoTime();
+        try {
+            List<Future<ReplicationResult>> futures = new ArrayList<>(replications);
+            for (int i = 0; i < replications; i++) {
+                int replication = i;
+                futures.add(pool.submit(() -> runReplication(scenario, runConfig, replication, RandomStreams.replicationSeed(seed, replication))));
+            }
+            List<ReplicationResult> results = new ArrayList<>(replications);
+            for (Future<ReplicationResult> future : futures) {
+                ReplicationResult result = future.get();
+                System.out.printf("Replication %d done in %.1f s%n", result.getReplication(), result.getWallNanos() / 1e9);
+                results.add(result);
+            }
+            return new BatchResult(results, System.nanoTime() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for replications", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Replication failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static ReplicationResult runReplication(Scenario scenario, RunConfig runConfig, int replication, long seed)
+            throws IOException {
+        long start = System.nanoTime();
+        DES des = EnginePool.acquire(seed, runConfig);
+        des.setRecordHourlyData(true);
+        scenario.applyTo(des);
+        des.start(Duration.ofDays(scenario.getDurationDays()));
+        return new ReplicationResult(replication, des, System.nanoTime() - start, scenario.getSeries());
+    }
+
+    /**
+     * Prints the per-replication timings and metrics, the across-replication estimates and the batch throughput, and
+     * writes the estimated hourly series to {@code <outputDirectory>/<scenario name>_series.csv}.
+     *
+     * @param scenario The scenario that was run.
+     * @param result   Its results.
+     * @throws IOException If the series file cannot be written.
+     */
+    public static void report(Scenario scenario, BatchResult result) throws IOException {
+        List<String> metrics = ReplicationResult.METRICS;
+        StringBuilder header = new StringBuilder(String.format("%-5s %20s %9s %12s", "Rep", "Seed", "Time (s)", "Events/s"));
+        for (String metric : metrics) {
+            header.append(String.format(" %22s", metric));
+        }
+        System.out.println(header);
+        for (ReplicationResult replication : result.getReplications()) {
+            StringBuilder row = new StringBuilder(String.format("%-5d %20d %9.2f %,12.0f", replication.getReplication(),
+                    replication.getSeed(), replication.getWallNanos() / 1e9, replication.getEventsPerSecond()));
+            for (String metric : metrics) {
+                row.append(String.format(" %22.2f", replication.getMetrics().get(metric)));
+            }
+            System.out.println(row);
+        }
+
+        System.out.printf("%nMeans over %d replications with %.0f%% confidence intervals:%n",
+                result.getReplications().size(), BatchResult.CONFIDENCE * 100);
+        for (Map.Entry<String, BatchResult.Estimate> entry : result.getMetrics().entrySet()) {
+            BatchResult.Estimate estimate = entry.getValue();
+            System.out.printf("  %-22s %12.2f ± %.2f%n", entry.getKey(), estimate.getMean(), estimate.getHalfWidth());
+        }
+        System.out.printf("%nWall-clock time: %.1f s, %,d events at %,.0f events/s, %.1f replications in parallel%n",
+                result.getWallNanos() / 1e9, result.getEvents(), result.getEventsPerSecond(), result.getSpeedup());
+
+        File directory = new File(Config.getInstance().getOutputDirectory());
+        directory.mkdirs();
+        File file = new File(directory, scenario.getName() + "_series.csv");
+        writeSeries(file, result);
+        System.out.println("Hourly series written to " + file.getPath());
+    }
+
+    /**
+     * Writes the estimated hourly series as CSV: the hour, then the mean and the bounds of the confidence interval of
+     * every series.
+     *
+     * @param file   The file to write.
+     * @param result The batch results.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void writeSeries(File file, BatchResult result) throws IOException {
+        Map<String, BatchResult.Estimate[]> series = result.getSeries();
+        int hours = series.values().stream().mapToInt(estimates -> estimates.length).min().orElse(0);
+        try (PrintWriter out = new PrintWriter(file)) {
+            StringBuilder line = new StringBuilder("Hour");
+            for (String name : series.keySet()) {
+                line.append(',').append(name).append(" mean,").append(name).append(" ci low,").append(name).append(" ci high");
+            }
+            out.println(line);
+            for (int h = 0; h < hours; h++) {
+                line.setLength(0);
+                line.append(h + 1);
+                for (BatchResult.Estimate[] estimates : series.values()) {
+                    BatchResult.Estimate estimate = estimates[h];
+                    line.append(',').append(estimate.getMean()).append(',').append(estimate.getLow()).append(',')
+                            .append(estimate.getHigh());
+                }
+                out.println(line);
+            }
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package experiments;
+
+import org.mariuszgromada.math.mxparser.License;
+import simulation.Config;
+import simulation.RandomStreams;
+import simulation.RunConfig;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a {@link Sweep} on separate worker processes, so that a run that crashes its JVM (e.g. in the native solver of
+ * the staff schedulers) or runs out of memory only costs that run's worker.
+ * <p>
+ * Usage: {@code ClusterCoordinator <sweep.json> [local workers] [port]}. The coordinator listens on the port (any free
+ * port by default, printed on start), starts the given number of {@link ClusterWorker} JVMs on this machine (one per
+ * available processor by default) and hands every run of the sweep to whichever worker is free. Workers on other
+ * machines can join at any time by connecting to the same port. When a worker disconnects before returning its run,
+ * the run is queued again, up to {@link #MAX_ATTEMPTS} times, and a local worker that exited is restarted.
+ * </p>
+ * <p>
+ * Results are written as with {@link SweepRunner}: a row per run in {@code <outputDirectory>/<sweep name>_sweep.csv}
+ * as runs complete, and a per-point summary, merged from the workers' patient statistics, at the end.
+ * </p>
+ */
+public class ClusterCoordinator {
+    /** How many times a run is started before it is given up on, if its workers keep crashing. */
+    public static final int MAX_ATTEMPTS = 3;
+    private static final long POLL_MILLIS = 500;
+
+    private final Sweep sweep;
+    private final long seed;
+    private final List<Object[]> points;
+    private final List<PointSummary> summaries;
+    private final BlockingDeque<Integer> queue = new LinkedBlockingDeque<>();
+    private final int[] attempts;
+    private final CountDownLatch remaining;
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger restarts = new AtomicInteger();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger liveLocalWorkers = new AtomicInteger();
+    private final Set<Long> connectedPids = ConcurrentHashMap.newKeySet();
+    private final List<Process> localWorkers = new ArrayList<>();
+    private SweepTable results;
+    private ServerSocket server;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.out.println("Usage: ClusterCoordinator <sweep.json> [local workers] [port]");
+            return;
+        }
+        // Confirm non-commercial use for mxparser library
+        License.iConfirmNonCommercialUse("KEN12");
+
+        Sweep sweep = Sweep.read(new File(args[0]));
+        int workers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        File directory = new File(Config.getInstance().getOutputDirectory());
+        directory.mkdirs();
+        new ClusterCoordinator(sweep).run(new File(directory, sweep.getName() + "_sweep.csv"), workers, port);
+    }
+
+    /**
+     * @param sweep The sweep to run.
+     */
+    public ClusterCoordinator(Sweep sweep) {
+        this.sweep = sweep;
+        this.seed = sweep.getSeed() != null ? sweep.getSeed() : RandomStreams.withRandomSeed().getSeed();
+        this.points = sweep.points(seed);
+        this.summaries = new ArrayList<>(points.size());
+        for (int i = 0; i < points.size(); i++) {
+            summaries.add(new PointSummary());
+        }
+        int runs = points.size() * sweep.getReplications();
+        this.attempts = new int[runs];
+        this.remaining = new CountDownLatch(runs);
+        for (int run = 0; run < runs; run++) {
+            queue.add(run);
+        }
+    }
+
+    /**
+     * Runs the sweep and waits for every run to complete or be given up on.
+     *
+     * @param table        The CSV file to stream the results to.
+     * @param workers      The number of worker processes to start on this machine.
+     * @param port         The port to listen on for workers, or 0 for any free port.
+     * @return The number of runs that completed.
+     * @throws IOException          If the port or the table cannot be opened, or a worker cannot be started.
+     * @throws InterruptedException If interrupted while waiting for the runs.
+     */
+    public int run(File table, int workers, int port) throws IOException, InterruptedException {
+        // Check every point's configuration before any worker starts, as SweepRunner does
+        RunConfig base = RunConfig.defaults();
+        for (int i = 0; i < points.size(); i++) {
+            sweep.configure(base, points.get(i), i);
+        }
+        List<String> names = new ArrayList<>();
+        for (Parameter parameter : sweep.getParameters()) {
+            names.add(parameter.getName());
+        }
+
+        long start = System.nanoTime();
+        try (SweepTable results = new SweepTable(table, names);
+             ServerSocket server = new ServerSocket(port)) {
+            this.results = results;
+            this.server = server;
+            System.out.println("Coordinating " + points.size() + " " + sweep.getDesign() + " points x "
+                    + sweep.getReplications() + " replications of '" + sweep.getName() + "' with seed " + seed
+                    + "; workers connect to port " + server.getLocalPort());
+            Thread acceptor = new Thread(this::accept, "cluster-acceptor");
+            acceptor.setDaemon(true);
+            acceptor.start();
+            for (int i = 0; i < workers; i++) {
+                startLocalWorker();
+            }
+            remaining.await();
+        } finally {
+            synchronized (localWorkers) {
+                for (Process worker : this.localWorkers) {
+                    // Workers leave once told to shut down; only stragglers are stopped
+                    if (!worker.waitFor(5, TimeUnit.SECONDS)) {
+                        worker.destroy();
+                    }
+                }
+            }
+        }
+        SweepTable.writePoints(SweepRunner.pointsFile(table), names, points, summaries);
+
+        System.out.printf("%d runs completed, %d failed, %d worker restarts, in %.1f s. Results written to %s and %s%n",
+                completed.get(), failed.get(), restarts.get(), (System.nanoTime() - start) / 1e9, table.getPath(),
+                SweepRunner.pointsFile(table).getPath());
+        return completed.get();
+    }
+
+    /**
+     * Starts a worker JVM on this machine with the coordinator's classpath, heap limit and system properties, and
+     * restarts it if it exits while runs remain. A worker that exits before it ever connected is not restarted, since
+     * its replacement would most likely fail the same way.
+     */
+    private void startLocalWorker() throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (argument.startsWith("-Xmx") || argument.startsWith("-D")) {
+                command.add(argument);
+            }
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ClusterWorker.class.getName());
+        command.add("localhost");
+        command.add(String.valueOf(server.getLocalPort()));
+        Process worker = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        synchronized (localWorkers) {
+            localWorkers.add(worker);
+        }
+        liveLocalWorkers.incrementAndGet();
+        worker.onExit().thenAccept(exited -> {
+            liveLocalWorkers.decrementAndGet();
+            if (remaining.getCount() == 0) {
+                return;
+            }
+            if (!connectedPids.contains(exited.pid())) {
+                System.err.println("Worker " + exited.pid() + " exited with code " + exited.exitValue()
+                        + " before connecting; not restarting it");
+                if (liveLocalWorkers.get() == 0 && connections.get() == 0) {
+                    giveUp("no workers are left");
+                }
+                return;
+            }
+            System.err.println("Worker " + exited.pid() + " exited with code " + exited.exitValue() + ", restarting it");
+            restarts.incrementAndGet();
+            try {
+                startLocalWorker();
+            } catch (IOException e) {
+                System.err.println("Could not restart worker: " + e);
+            }
+        });
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                Thread handler = new Thread(() -> serve(socket), "cluster-worker-" + socket.getRemoteSocketAddress());
+                handler.setDaemon(true);
+                handler.start();
+            } catch (SocketException e) {
+                return; // the server was closed
+            } catch (IOException e) {
+                System.err.println("Could not accept a worker: " + e);
+            }
+        }
+    }
+
+    /**
+     * Hands runs to one worker until none remain. If the worker disconnects, its current run is queued again.
+     */
+    private void serve(Socket socket) {
+        Integer run = null;
+        connections.incrementAndGet();
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            if (in.readInt() != ClusterProtocol.MAGIC || in.readInt() != ClusterProtocol.VERSION) {
+                System.err.println("Ignoring a connection from " + socket.getRemoteSocketAddress() + ": not a worker");
+                return;
+            }
+            connectedPids.add(in.readLong());
+            ClusterProtocol.writeString(out, sweep.toJson());
+            out.writeLong(seed);
+            out.flush();
+            while (true) {
+                run = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (run == null) {
+                    if (remaining.getCount() == 0) {
+                        out.writeByte(ClusterProtocol.SHUTDOWN);
+                        out.flush();
+                        return;
+                    }
+                    continue;
+                }
+                out.writeByte(ClusterProtocol.TASK);
+                out.writeInt(run);
+                out.flush();
+                byte reply = in.readByte();
+                if (reply == ClusterProtocol.RESULT) {
+                    complete(run, ClusterProtocol.readResult(in));
+                } else {
+                    fail(run, ClusterProtocol.readString(in));
+                }
+                run = null;
+            }
+        } catch (IOException e) {
+            if (run != null) {
+                retry(run, e);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (run != null) {
+                queue.addFirst(run);
+            }
+        } finally {
+            connections.decrementAndGet();
+        }
+    }
+
+    private void complete(int run, ReplicationResult result) {
+        int point = run / sweep.getReplications();
+        results.append(point, points.get(point), result);
+        summaries.get(point).add(result);
+        int done = completed.incrementAndGet();
+        if (done % Math.max(1, attempts.length / 20) == 0) {
+            System.out.printf("%d/%d runs done%n", done, attempts.length);
+        }
+        remaining.countDown();
+    }
+
+    private void fail(int run, String message) {
+        failed.incrementAndGet();
+        System.err.println("Run of point " + run / sweep.getReplications() + ", replication "
+                + run % sweep.getReplications() + " failed: " + message);
+        remaining.countDown();
+    }
+
+    /**
+     * Fails every queued run, when there is no worker left to run them.
+     */
+    private void giveUp(String reason) {
+        Integer run;
+        while ((run = queue.poll()) != null) {
+            fail(run, reason);
+        }
+    }
+
+    private void retry(int run, IOException cause) {
+        int attempt;
+        synchronized (attempts) {
+            attempt = ++attempts[run];
+        }
+        if (attempt < MAX_ATTEMPTS) {
+            System.err.println("Lost the worker of run " + run + " (" + cause + "), queueing it again");
+            queue.addFirst(run);
+        } else {
+            fail(run, "its worker was lost " + attempt + " times, last with " + cause);
+        }
+    }
+}
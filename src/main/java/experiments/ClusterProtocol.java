@@ -0,0 +1,78 @@
+package experiments;
+
+import simulation.PatientStatistics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The messages between a {@link ClusterCoordinator} and its {@link ClusterWorker}s, over a socket with
+ * {@link java.io.DataOutputStream} encoding:
+ * <pre>
+ *   worker      -&gt; coordinator:  int MAGIC, int VERSION, long process id
+ *   coordinator -&gt; worker:       string sweep JSON, long seed
+ *   then, repeatedly:
+ *   coordinator -&gt; worker:       byte TASK, int run      or  byte SHUTDOWN
+ *   worker      -&gt; coordinator:  byte RESULT, result      or  byte FAILURE, string message
+ * </pre>
+ * A run is a design point and replication of the sweep, numbered {@code point * replications + replication}; the
+ * worker derives the point's values and the replication's seed itself, the same way {@link SweepRunner} does. A
+ * result carries the run's end-of-run metrics and its {@link PatientStatistics}, which the coordinator merges. A
+ * FAILURE is a run that threw, and would throw again; a worker that disconnects instead has crashed, and its run is
+ * given to another worker.
+ */
+final class ClusterProtocol {
+    static final int MAGIC = 0x45524357; // "ERCW"
+    static final int VERSION = 1;
+
+    static final byte TASK = 1;
+    static final byte SHUTDOWN = 2;
+    static final byte RESULT = 3;
+    static final byte FAILURE = 4;
+
+    private ClusterProtocol() {
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeResult(DataOutput out, ReplicationResult result) throws IOException {
+        out.writeInt(result.getReplication());
+        out.writeLong(result.getSeed());
+        out.writeLong(result.getWallNanos());
+        out.writeLong(result.getEvents());
+        out.writeInt(result.getMetrics().size());
+        for (Map.Entry<String, Double> metric : result.getMetrics().entrySet()) {
+            out.writeUTF(metric.getKey());
+            out.writeDouble(metric.getValue());
+        }
+        result.getPatientStatistics().writeTo(out);
+    }
+
+    static ReplicationResult readResult(DataInput in) throws IOException {
+        int replication = in.readInt();
+        long seed = in.readLong();
+        long wallNanos = in.readLong();
+        long events = in.readLong();
+        int count = in.readInt();
+        Map<String, Double> metrics = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            metrics.put(in.readUTF(), in.readDouble());
+        }
+        PatientStatistics patientStatistics = PatientStatistics.readFrom(in);
+        return new ReplicationResult(replication, seed, wallNanos, events, metrics, Map.of(), patientStatistics);
+    }
+}
@@ -0,0 +1,80 @@
+package experiments;
+
+import org.mariuszgromada.math.mxparser.License;
+import simulation.RandomStreams;
+import simulation.RunConfig;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A worker process of a {@link ClusterCoordinator}: connects to the coordinator, receives its sweep and runs the
+ * runs it is given one at a time until told to stop.
+ * <p>
+ * Usage: {@code ClusterWorker <coordinator host> <port>}. The coordinator starts workers on its own machine; workers
+ * on other machines are started by hand with the coordinator's host and port, and need the same classpath and
+ * config.json.
+ * </p>
+ */
+public class ClusterWorker {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: ClusterWorker <coordinator host> <port>");
+            return;
+        }
+        // Confirm non-commercial use for mxparser library
+        License.iConfirmNonCommercialUse("KEN12");
+        run(args[0], Integer.parseInt(args[1]));
+    }
+
+    /**
+     * Serves a coordinator until it sends SHUTDOWN.
+     *
+     * @param host The coordinator's host.
+     * @param port The coordinator's port.
+     * @throws IOException If the connection fails or the configuration cannot be loaded.
+     */
+    public static void run(String host, int port) throws IOException {
+        RunConfig base = RunConfig.defaults();
+        try (Socket socket = new Socket(host, port);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            out.writeInt(ClusterProtocol.MAGIC);
+            out.writeInt(ClusterProtocol.VERSION);
+            out.writeLong(ProcessHandle.current().pid());
+            out.flush();
+            Sweep sweep = Sweep.fromJson(ClusterProtocol.readString(in));
+            long seed = in.readLong();
+            List<Object[]> points = sweep.points(seed);
+            Map<Integer, RunConfig> configs = new HashMap<>();
+
+            while (in.readByte() == ClusterProtocol.TASK) {
+                int run = in.readInt();
+                int point = run / sweep.getReplications();
+                int replication = run % sweep.getReplications();
+                ReplicationResult result;
+                try {
+                    RunConfig config = configs.computeIfAbsent(point, p -> sweep.configure(base, points.get(p), p));
+                    result = SweepRunner.runOne(sweep, config, points.get(point), replication,
+                            RandomStreams.replicationSeed(seed, replication));
+                } catch (Exception e) {
+                    out.writeByte(ClusterProtocol.FAILURE);
+                    ClusterProtocol.writeString(out, String.valueOf(e));
+                    out.flush();
+                    continue;
+                }
+                out.writeByte(ClusterProtocol.RESULT);
+                ClusterProtocol.writeResult(out, result);
+                out.flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package experiments;
+
+import simulation.DES;
+import simulation.RunConfig;
+
+/**
+ * Warm simulations for the runs of batches and sweeps, one per worker thread, reused from run to run with
+ * {@link DES#reset(long, RunConfig)} instead of built anew, so that short runs do not spend most of their time on
+ * setup and garbage collection. A thread's simulation only ever runs on that thread, one run at a time. A
+ * {@link ReplicationResult} copies what it keeps of a run, so it stays valid after its thread's next run.
+ */
+final class EnginePool {
+    private static final ThreadLocal<DES> ENGINES = new ThreadLocal<>();
+
+    private EnginePool() {
+    }
+
+    /**
+     * Returns the calling thread's simulation, reset for a new run, creating it on the thread's first run. It is
+     * quiet; other settings are as for a new simulation.
+     *
+     * @param seed      The seed of the run.
+     * @param runConfig The configuration of the run.
+     * @return The simulation.
+     */
+    static DES acquire(long seed, RunConfig runConfig) {
+        DES des = ENGINES.get();
+        if (des == null) {
+            des = new DES(seed, runConfig);
+            des.setQuiet(true);
+            ENGINES.set(des);
+        } else {
+            des.reset(seed, runConfig);
+        }
+        des.setRecordHourlyData(false);
+        return des;
+    }
+}
@@ -0,0 +1,95 @@
+package experiments;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * One dimension of a {@link Sweep}: a configuration variable and the values it may take, either a list of values
+ * (numbers, booleans or names such as arrival functions) or a numeric range.
+ * <p>
+ * The name is a config.json variable, with entries of map variables named with a dot (e.g. "ERTreatmentRooms",
+ * "staffCounts.REGISTERED_NURSE", "defaultArrivalFunction", "useUnlimitedStaff"), or "triageClassifier" (CTAS, ESI
+ * or MTS), which is not part of config.json. A range covers {@code min} to {@code max}, both included, in whole
+ * numbers if {@code integer} is set; a full grid takes {@code steps} evenly spaced values from it.
+ * </p>
+ */
+@Getter
+@Setter
+@JsonIgnoreProperties(ignoreUnknown = false)
+public class Parameter {
+    private static final List<String> TRIAGE_CLASSIFIERS = List.of("CTAS", "ESI", "MTS");
+
+    private String name;
+    private List<Object> values;
+    private Double min;
+    private Double max;
+    private boolean integer;
+    private int steps = 2;
+
+    /**
+     * Maps a coordinate of the unit interval onto the parameter, so that uniformly spread coordinates give uniformly
+     * spread values: list values and whole numbers are each covered by an equal share of the interval.
+     *
+     * @param u A coordinate in [0, 1).
+     * @return The value.
+     */
+    public Object value(double u) {
+        if (values != null) {
+            return values.get(Math.min((int) (u * values.size()), values.size() - 1));
+        }
+        if (integer) {
+            long low = Math.round(min);
+            long high = Math.round(max);
+            return Math.min(low + (long) (u * (high - low + 1)), high);
+        }
+        return min + u * (max - min);
+    }
+
+    /**
+     * @return The values of the parameter in a full grid: all listed values, or {@code steps} evenly spaced values of
+     * the range.
+     */
+    public List<Object> gridValues() {
+        if (values != null) {
+            return values;
+        }
+        List<Object> grid = new ArrayList<>(steps);
+        for (int i = 0; i < steps; i++) {
+            double value = steps == 1 ? min : min + i * (max - min) / (steps - 1);
+            grid.add(integer ? (Object) Math.round(value) : (Object) value);
+        }
+        return grid;
+    }
+
+    /**
+     * Checks that the parameter is either a non-empty list of values or a range, and that a triage classifier
+     * parameter lists only known classifiers.
+     *
+     * @throws IllegalArgumentException If it is neither, or names an unknown classifier.
+     */
+    void validate() {
+        if (name == null) {
+            throw new IllegalArgumentException("A parameter needs a name");
+        }
+        if (values != null ? values.isEmpty() : min == null || max == null || min > max || steps < 1) {
+            throw new IllegalArgumentException("Parameter " + name + " needs a list of values or a range min <= max");
+        }
+        if (name.equals(Sweep.TRIAGE_CLASSIFIER)) {
+            if (values == null) {
+                throw new IllegalArgumentException("Parameter " + name + " needs a list of values");
+            }
+            for (Object value : values) {
+                if (!(value instanceof String classifier)
+                        || !TRIAGE_CLASSIFIERS.contains(classifier.toUpperCase(Locale.ROOT))) {
+                    throw new IllegalArgumentException("Unknown triage classifier " + value + ", expected one of "
+                            + TRIAGE_CLASSIFIERS);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package experiments;
+
+import simulation.PatientStatistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The replications of one design point of a sweep, merged as they complete: the end-of-run metrics of every
+ * replication, for across-replication estimates, and the patient statistics of all replications together. The
+ * patient statistics of a replication are merged and dropped, so a sweep of many points does not keep them all.
+ * Replications may be added from any thread.
+ */
+public class PointSummary {
+    private final List<Map<String, Double>> metrics = new ArrayList<>();
+    private final PatientStatistics patientStatistics = new PatientStatistics();
+
+    /**
+     * Adds a completed replication.
+     *
+     * @param replication The replication's summary.
+     */
+    public synchronized void add(ReplicationResult replication) {
+        metrics.add(replication.getMetrics());
+        patientStatistics.merge(replication.getPatientStatistics());
+    }
+
+    public synchronized int getReplications() {
+        return metrics.size();
+    }
+
+    /**
+     * @param metric One of {@link ReplicationResult#METRICS}.
+     * @return The metric's mean over the replications added so far, with its confidence interval.
+     */
+    public synchronized BatchResult.Estimate estimate(String metric) {
+        double[] values = new double[metrics.size()];
+        for (int r = 0; r < values.length; r++) {
+            values[r] = metrics.get(r).get(metric);
+        }
+        return BatchResult.estimate(values, BatchResult.criticalValue(values.length));
+    }
+
+    /**
+     * @return The patient statistics of all replications added so far. Not to be read while replications are added.
+     */
+    public PatientStatistics getPatientStatistics() {
+        return patientStatistics;
+    }
+}
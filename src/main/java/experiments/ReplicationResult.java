@@ -0,0 +1,96 @@
+package experiments;
+
+import lombok.Getter;
+import simulation.DES;
+import simulation.PatientStatistics;
+import simulation.ProbeRecorder;
+import simulation.RunningStatistics;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The summary of one replication of a batch: its seed and timing, its end-of-run metrics, the hourly series the
+ * scenario asked for and its patient statistics.
+ */
+@Getter
+public class ReplicationResult {
+    /** The names of the end-of-run metrics, in report order. */
+    public static final List<String> METRICS = List.of("treated", "rejected", "leftWithoutBeingSeen", "deteriorated",
+            "waitMins.mean", "waitMins.p90", "lengthOfStayMins.mean");
+
+    private final int replication;
+    private final long seed;
+    private final long wallNanos;
+    private final long events;
+    private final Map<String, Double> metrics;
+    private final Map<String, double[]> series;
+    private final PatientStatistics patientStatistics;
+
+    /**
+     * Summarizes a finished simulation.
+     *
+     * @param replication The replication index.
+     * @param des         The finished simulation, with hourly data recorded.
+     * @param wallNanos   How long the replication took.
+     * @param seriesNames The hourly probes to keep.
+     */
+    public ReplicationResult(int replication, DES des, long wallNanos, List<String> seriesNames) {
+        this.replication = replication;
+        this.seed = des.getStreams().getSeed();
+        this.wallNanos = wallNanos;
+        this.events = des.getEventsProcessed();
+        // A copy, since the simulation may be reset for another run, see EnginePool
+        PatientStatistics patients = des.getPatientStatistics();
+        this.patientStatistics = new PatientStatistics();
+        patientStatistics.merge(patients);
+
+        RunningStatistics waits = patients.get(PatientStatistics.Metric.WAIT);
+        Map<String, Double> values = new LinkedHashMap<>();
+        values.put("treated", (double) des.getPatientsTreated());
+        values.put("rejected", (double) des.getPatientsRejected());
+        values.put("leftWithoutBeingSeen", (double) des.getPatientsLeftWithoutBeingSeen());
+        values.put("deteriorated", (double) des.getPatientsDeteriorated());
+        values.put("waitMins.mean", waits.getMean());
+        values.put("waitMins.p90", waits.getQuantile(0.9));
+        values.put("lengthOfStayMins.mean", patients.get(PatientStatistics.Metric.LENGTH_OF_STAY).getMean());
+        this.metrics = values;
+
+        ProbeRecorder hourly = des.getHourlyData();
+        Map<String, double[]> recorded = new LinkedHashMap<>();
+        for (String name : seriesNames) {
+            recorded.put(name, hourly.getSeries(name));
+        }
+        this.series = recorded;
+    }
+
+    /**
+     * Recreates the summary of a replication that ran elsewhere, e.g. in a {@link ClusterWorker}.
+     *
+     * @param replication       The replication index.
+     * @param seed              The replication's seed.
+     * @param wallNanos         How long the replication took.
+     * @param events            The number of events it simulated.
+     * @param metrics           Its end-of-run metrics, by name.
+     * @param series            Its hourly series, by name.
+     * @param patientStatistics Its patient statistics.
+     */
+    public ReplicationResult(int replication, long seed, long wallNanos, long events, Map<String, Double> metrics,
+                             Map<String, double[]> series, PatientStatistics patientStatistics) {
+        this.replication = replication;
+        this.seed = seed;
+        this.wallNanos = wallNanos;
+        this.events = events;
+        this.metrics = metrics;
+        this.series = series;
+        this.patientStatistics = patientStatistics;
+    }
+
+    /**
+     * @return The replication's simulated events per second of wall-clock time.
+     */
+    public double getEventsPerSecond() {
+        return events / (wallNanos / 1e9);
+    }
+}
@@ -0,0 +1,81 @@
+package experiments;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.Setter;
+import simulation.DES;
+import simulation.DispatchPolicy;
+import simulation.RunConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An experiment scenario, read from a JSON file such as scenarios/standard.json: what to simulate, on top of the
+ * settings in config.json, and which hourly series to summarize across replications. Unset fields keep the
+ * config.json behaviour.
+ */
+@Getter
+@Setter
+@JsonIgnoreProperties(ignoreUnknown = false)
+public class Scenario {
+    private String name = "scenario";
+    private int durationDays = 100;
+    // The experiment's base seed; replication i runs with RandomStreams.replicationSeed(seed, i). Random if unset.
+    private Long seed;
+    private String arrivalFunction;      // a key of patientArrivalFunctions
+    private String triageClassifier;     // CTAS, ESI or MTS
+    private DispatchPolicy dispatchPolicy;
+    private Double interarrivalTimeMins;
+    // Hourly probes (see DES.HOURLY_PROBES) whose across-replication mean and confidence interval are reported
+    private List<String> series = List.of("arrivals", "waiting", "treating");
+
+    /**
+     * Reads a scenario file.
+     *
+     * @param file The JSON file.
+     * @return The scenario.
+     * @throws IOException If the file cannot be read or has unknown fields.
+     */
+    public static Scenario read(File file) throws IOException {
+        return new ObjectMapper().readValue(file, Scenario.class);
+    }
+
+    /**
+     * Creates the configuration of the scenario's runs: config.json with the scenario's arrival function and
+     * interarrival time, where set.
+     *
+     * @return The run configuration.
+     * @throws IOException              If config.json cannot be read.
+     * @throws IllegalArgumentException If the arrival function or interarrival time does not fit its variable.
+     */
+    public RunConfig runConfig() throws IOException {
+        Map<String, Object> overrides = new HashMap<>();
+        if (arrivalFunction != null) {
+            overrides.put("defaultArrivalFunction", arrivalFunction);
+        }
+        if (interarrivalTimeMins != null) {
+            overrides.put("interarrivalTimeMins", interarrivalTimeMins);
+        }
+        return RunConfig.defaults().withOverrides(overrides);
+    }
+
+    /**
+     * Applies the scenario's settings that are not part of its configuration, see {@link #runConfig()}, to a
+     * simulation before it starts.
+     *
+     * @param des The simulation.
+     */
+    public void applyTo(DES des) {
+        if (triageClassifier != null) {
+            des.setTriageClassifier(triageClassifier);
+        }
+        if (dispatchPolicy != null) {
+            des.setDispatchPolicy(dispatchPolicy);
+        }
+    }
+}
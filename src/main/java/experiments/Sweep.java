@@ -0,0 +1,130 @@
+package experiments;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.Setter;
+import simulation.DES;
+import simulation.RunConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * A design-of-experiments sweep, read from a JSON file such as scenarios/staffing_sweep.json: the parameters to vary
+ * (see {@link Parameter}), how to choose design points from them, and how many replications to run of each point.
+ * Everything not varied keeps its config.json value.
+ */
+@Getter
+@Setter
+@JsonIgnoreProperties(ignoreUnknown = false)
+public class Sweep {
+    /** The parameter name of the triage classifier, which is set on the simulation rather than in config.json. */
+    public static final String TRIAGE_CLASSIFIER = "triageClassifier";
+
+    private String name = "sweep";
+    private SweepDesign design = SweepDesign.GRID;
+    private int samples = 64;            // points of a LATIN_HYPERCUBE or SOBOL design
+    private int replications = 1;        // per design point
+    private int durationDays = 100;
+    // The base seed. Replication i of every point runs with RandomStreams.replicationSeed(seed, i), so points are
+    // compared on the same random numbers. Random if unset.
+    private Long seed;
+    // Whether every run also writes its hourly logs in config.json's outputFormats; off by default since a sweep has
+    // many runs and the result table holds their summaries
+    private boolean runLogs;
+    private List<Parameter> parameters;
+
+    /**
+     * Reads a sweep file.
+     *
+     * @param file The JSON file.
+     * @return The sweep.
+     * @throws IOException If the file cannot be read or has unknown fields.
+     */
+    public static Sweep read(File file) throws IOException {
+        return validate(new ObjectMapper().readValue(file, Sweep.class));
+    }
+
+    /**
+     * Parses a sweep, e.g. one sent by a {@link ClusterCoordinator}.
+     *
+     * @param json The sweep as JSON, see {@link #toJson()}.
+     * @return The sweep.
+     * @throws IOException If the JSON is not a sweep.
+     */
+    public static Sweep fromJson(String json) throws IOException {
+        return validate(new ObjectMapper().readValue(json, Sweep.class));
+    }
+
+    /**
+     * @return The sweep as JSON.
+     * @throws IOException If the sweep cannot be serialized.
+     */
+    public String toJson() throws IOException {
+        return new ObjectMapper().writeValueAsString(this);
+    }
+
+    private static Sweep validate(Sweep sweep) {
+        if (sweep.parameters == null || sweep.parameters.isEmpty()) {
+            throw new IllegalArgumentException("A sweep needs at least one parameter");
+        }
+        for (Parameter parameter : sweep.parameters) {
+            parameter.validate();
+        }
+        return sweep;
+    }
+
+    /**
+     * Chooses the design points of the sweep.
+     *
+     * @param seed The sweep's base seed, which also drives a Latin hypercube.
+     * @return The points, each holding one value per parameter in parameter order.
+     */
+    public List<Object[]> points(long seed) {
+        return design.points(parameters, samples, new SplittableRandom(seed));
+    }
+
+    /**
+     * Creates the configuration of a design point.
+     *
+     * @param base  The configuration the point varies.
+     * @param point The point's parameter values, in parameter order.
+     * @param index The point's index, which keeps the names of its run logs apart from those of other points.
+     * @return The configuration.
+     * @throws IllegalArgumentException If a parameter is not a configuration variable or its value does not fit.
+     */
+    public RunConfig configure(RunConfig base, Object[] point, int index) {
+        Map<String, Object> overrides = new HashMap<>();
+        for (int d = 0; d < point.length; d++) {
+            String parameter = parameters.get(d).getName();
+            if (!parameter.equals(TRIAGE_CLASSIFIER)) {
+                overrides.put(parameter, point[d]);
+            }
+        }
+        if (runLogs) {
+            overrides.put("outputFilePattern", base.getConfig().getOutputFilePattern() + "_p" + index);
+        } else {
+            overrides.put("outputFormats", List.of());
+        }
+        return base.withOverrides(overrides);
+    }
+
+    /**
+     * Applies the settings of a design point that are not part of the configuration to a simulation.
+     *
+     * @param des   The simulation.
+     * @param point The point's parameter values, in parameter order.
+     */
+    public void applyTo(DES des, Object[] point) {
+        for (int d = 0; d < point.length; d++) {
+            if (parameters.get(d).getName().equals(TRIAGE_CLASSIFIER)) {
+                des.setTriageClassifier(String.valueOf(point[d]));
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package experiments;
+
+import org.apache.commons.math3.random.SobolSequenceGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * How a {@link Sweep} chooses its design points from the parameter space.
+ */
+public enum SweepDesign {
+    /** Every combination of the parameters' grid values, see {@link Parameter#gridValues()}. */
+    GRID,
+    /**
+     * A Latin hypercube of the requested number of points: every parameter's range is cut into as many equal strata
+     * as there are points, and every stratum is used by exactly one point.
+     */
+    LATIN_HYPERCUBE,
+    /** The first points of a Sobol sequence, a low-discrepancy sequence that fills the space evenly. */
+    SOBOL;
+
+    /**
+     * Chooses the design points.
+     *
+     * @param parameters The parameters.
+     * @param samples    The number of points of a Latin hypercube or Sobol design; ignored by a grid.
+     * @param random     The randomness of a Latin hypercube.
+     * @return The points, each holding one value per parameter in parameter order.
+     */
+    public List<Object[]> points(List<Parameter> parameters, int samples, SplittableRandom random) {
+        int dimensions = parameters.size();
+        List<Object[]> points = new ArrayList<>();
+        switch (this) {
+            case GRID -> {
+                List<List<Object>> axes = new ArrayList<>(dimensions);
+                for (Parameter parameter : parameters) {
+                    axes.add(parameter.gridValues());
+                }
+                int[] index = new int[dimensions];
+                while (true) {
+                    Object[] point = new Object[dimensions];
+                    for (int d = 0; d < dimensions; d++) {
+                        point[d] = axes.get(d).get(index[d]);
+                    }
+                    points.add(point);
+                    // Advance the last parameter fastest, like an odometer
+                    int d = dimensions - 1;
+                    while (d >= 0 && ++index[d] == axes.get(d).size()) {
+                        index[d--] = 0;
+                    }
+                    if (d < 0) {
+                        break;
+                    }
+                }
+            }
+            case LATIN_HYPERCUBE -> {
+                double[][] u = new double[samples][dimensions];
+                int[] strata = new int[samples];
+                for (int d = 0; d < dimensions; d++) {
+                    for (int i = 0; i < samples; i++) {
+                        strata[i] = i;
+                    }
+                    for (int i = samples - 1; i > 0; i--) { // Fisher-Yates shuffle
+                        int j = random.nextInt(i + 1);
+                        int swap = strata[i];
+                        strata[i] = strata[j];
+                        strata[j] = swap;
+                    }
+                    for (int i = 0; i < samples; i++) {
+                        u[i][d] = (strata[i] + random.nextDouble()) / samples;
+                    }
+                }
+                for (double[] coordinates : u) {
+                    points.add(map(parameters, coordinates));
+                }
+            }
+            case SOBOL -> {
+                SobolSequenceGenerator sobol = new SobolSequenceGenerator(dimensions);
+                for (int i = 0; i < samples; i++) {
+                    points.add(map(parameters, sobol.nextVector()));
+                }
+            }
+        }
+        return points;
+    }
+
+    private static Object[] map(List<Parameter> parameters, double[] coordinates) {
+        Object[] point = new Object[parameters.size()];
+        for (int d = 0; d < point.length; d++) {
+            point[d] = parameters.get(d).value(coordinates[d]);
+        }
+        return point;
+    }
+}
@@ -0,0 +1,168 @@
+package experiments;
+
+import org.mariuszgromada.math.mxparser.License;
+import simulation.Config;
+import simulation.DES;
+import simulation.RandomStreams;
+import simulation.RunConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs a {@link Sweep}: every design point times every replication, on a work-stealing fork/join pool, streaming
+ * each run's summary into a {@link SweepTable} as it completes.
+ * <p>
+ * Usage: {@code SweepRunner <sweep.json> [threads]}. The table is written to
+ * {@code <outputDirectory>/<sweep name>_sweep.csv}, and a summary per design point to
+ * {@code <outputDirectory>/<sweep name>_points.csv} at the end. The runs of a sweep are split in halves until single runs
+ * remain, so idle workers steal whole ranges of runs from busy ones and all cores stay busy while long and short
+ * runs mix. A run that fails is reported and left out of the table; the other runs go on.
+ * </p>
+ */
+public class SweepRunner {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: SweepRunner <sweep.json> [threads]");
+            return;
+        }
+        // Confirm non-commercial use for mxparser library
+        License.iConfirmNonCommercialUse("KEN12");
+
+        Sweep sweep = Sweep.read(new File(args[0]));
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        File directory = new File(Config.getInstance().getOutputDirectory());
+        directory.mkdirs();
+        run(sweep, new File(directory, sweep.getName() + "_sweep.csv"), threads);
+    }
+
+    /**
+     * Runs a sweep.
+     *
+     * @param sweep   The sweep.
+     * @param table   The CSV file to stream the results to.
+     * @param threads The number of worker threads.
+     * @return The number of runs that completed.
+     * @throws IOException If the configuration cannot be loaded or the table cannot be created.
+     */
+    public static int run(Sweep sweep, File table, int threads) throws IOException {
+        RunConfig base = RunConfig.defaults();
+        long seed = sweep.getSeed() != null ? sweep.getSeed() : RandomStreams.withRandomSeed().getSeed();
+        List<Object[]> points = sweep.points(seed);
+        // Build every point's configuration up front, so that a bad parameter fails before any run starts
+        List<RunConfig> configs = new ArrayList<>(points.size());
+        for (int i = 0; i < points.size(); i++) {
+            configs.add(sweep.configure(base, points.get(i), i));
+        }
+        int runs = points.size() * sweep.getReplications();
+        System.out.println("Sweeping " + points.size() + " " + sweep.getDesign() + " points x " + sweep.getReplications()
+                + " replications of '" + sweep.getName() + "' with seed " + seed + " on " + threads + " threads");
+
+        List<String> names = new ArrayList<>();
+        for (Parameter parameter : sweep.getParameters()) {
+            names.add(parameter.getName());
+        }
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        long start = System.nanoTime();
+        long[] events = new long[runs];
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        List<PointSummary> summaries = new ArrayList<>(points.size());
+        for (int i = 0; i < points.size(); i++) {
+            summaries.add(new PointSummary());
+        }
+        try (SweepTable results = new SweepTable(table, names)) {
+            pool.invoke(new Runs(0, runs, run -> {
+                int point = run / sweep.getReplications();
+                int replication = run % sweep.getReplications();
+                long runSeed = RandomStreams.replicationSeed(seed, replication);
+                try {
+                    ReplicationResult result = runOne(sweep, configs.get(point), points.get(point), replication, runSeed);
+                    results.append(point, points.get(point), result);
+                    summaries.get(point).add(result);
+                    events[run] = result.getEvents();
+                    int done = completed.incrementAndGet();
+                    if (done % Math.max(1, runs / 20) == 0) {
+                        System.out.printf("%d/%d runs done%n", done, runs);
+                    }
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                    System.err.println("Run of point " + point + ", replication " + replication + " failed: " + e);
+                }
+            }));
+        } finally {
+            pool.shutdown();
+        }
+
+        SweepTable.writePoints(pointsFile(table), names, points, summaries);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long totalEvents = 0;
+        for (long runEvents : events) {
+            totalEvents += runEvents;
+        }
+        System.out.printf("%d runs completed, %d failed, in %.1f s (%,.0f events/s). Results written to %s and %s%n",
+                completed.get(), failed.get(), seconds, totalEvents / seconds, table.getPath(), pointsFile(table).getPath());
+        return completed.get();
+    }
+
+    /**
+     * @param table The result table of a sweep.
+     * @return The file of its per-point summary, next to the table.
+     */
+    static File pointsFile(File table) {
+        return new File(table.getParentFile(), table.getName().replace("_sweep.csv", "") + "_points.csv");
+    }
+
+    /**
+     * Runs one replication of one design point.
+     *
+     * @param sweep       The sweep.
+     * @param config      The point's configuration, see {@link Sweep#configure(RunConfig, Object[], int)}.
+     * @param point       The point's parameter values.
+     * @param replication The replication index.
+     * @param seed        The replication's seed.
+     * @return The run's summary.
+     * @throws IOException If the run's logs cannot be written.
+     */
+    static ReplicationResult runOne(Sweep sweep, RunConfig config, Object[] point, int replication, long seed)
+            throws IOException {
+        long start = System.nanoTime();
+        DES des = EnginePool.acquire(seed, config);
+        sweep.applyTo(des, point);
+        des.start(Duration.ofDays(sweep.getDurationDays()));
+        return new ReplicationResult(replication, des, System.nanoTime() - start, List.of());
+    }
+
+    /**
+     * A range of runs, split in halves until it is a single run.
+     */
+    private static final class Runs extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final IntConsumer run;
+
+        Runs(int from, int to, IntConsumer run) {
+            this.from = from;
+            this.to = to;
+            this.run = run;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                run.accept(from);
+            } else if (to > from) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Runs(from, middle, run), new Runs(middle, to, run));
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package experiments;
+
+import simulation.PatientStatistics;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * The result table of a {@link Sweep}, a CSV file with one row per run: the point and replication indices, the seed,
+ * the point's parameter values, the run's end-of-run metrics (see {@link ReplicationResult#METRICS}) and its timing.
+ * Rows are appended, and flushed, as runs complete, from any thread, so they are in completion order; the indices
+ * identify the run. A sweep that is stopped keeps the rows of the runs it completed. A summary per design point
+ * can be written once the sweep is done, see {@link #writePoints(File, List, List, List)}.
+ */
+public class SweepTable implements Closeable {
+    private final BufferedWriter writer;
+
+    /**
+     * Creates the table and writes its header.
+     *
+     * @param file       The CSV file.
+     * @param parameters The sweep's parameter names, in parameter order.
+     * @throws IOException If the file cannot be created.
+     */
+    public SweepTable(File file, List<String> parameters) throws IOException {
+        this.writer = new BufferedWriter(new FileWriter(file));
+        StringBuilder header = new StringBuilder("Point,Replication,Seed");
+        for (String parameter : parameters) {
+            header.append(',').append(parameter);
+        }
+        for (String metric : ReplicationResult.METRICS) {
+            header.append(',').append(metric);
+        }
+        header.append(",Events,Time (s)\n");
+        writer.write(header.toString());
+        writer.flush();
+    }
+
+    /**
+     * Appends the row of a completed run.
+     *
+     * @param point       The point index.
+     * @param values      The point's parameter values.
+     * @param replication The run's summary.
+     */
+    public void append(int point, Object[] values, ReplicationResult replication) {
+        StringBuilder row = new StringBuilder();
+        row.append(point).append(',').append(replication.getReplication()).append(',').append(replication.getSeed());
+        for (Object value : values) {
+            row.append(',').append(value);
+        }
+        for (String metric : ReplicationResult.METRICS) {
+            row.append(',').append(replication.getMetrics().get(metric));
+        }
+        row.append(',').append(replication.getEvents()).append(',').append(replication.getWallNanos() / 1e9).append('\n');
+        synchronized (writer) {
+            try {
+                writer.write(row.toString());
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Writes the per-point summary of a sweep as CSV: the point index, its parameter values and number of completed
+     * replications, every metric's across-replication mean and confidence interval, and the 90th percentiles of wait
+     * and length of stay over the patients of all its replications.
+     *
+     * @param file       The CSV file.
+     * @param parameters The sweep's parameter names, in parameter order.
+     * @param points     The points' parameter values.
+     * @param summaries  The points' merged replications.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void writePoints(File file, List<String> parameters, List<Object[]> points, List<PointSummary> summaries)
+            throws IOException {
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(file))) {
+            StringBuilder line = new StringBuilder("Point");
+            for (String parameter : parameters) {
+                line.append(',').append(parameter);
+            }
+            line.append(",Replications");
+            for (String metric : ReplicationResult.METRICS) {
+                line.append(',').append(metric).append(" mean,").append(metric).append(" ci low,").append(metric)
+                        .append(" ci high");
+            }
+            line.append(",waitMins.p90 (all patients),lengthOfStayMins.p90 (all patients)\n");
+            out.write(line.toString());
+            for (int point = 0; point < points.size(); point++) {
+                PointSummary summary = summaries.get(point);
+                line.setLength(0);
+                line.append(point);
+                for (Object value : points.get(point)) {
+                    line.append(',').append(value);
+                }
+                line.append(',').append(summary.getReplications());
+                for (String metric : ReplicationResult.METRICS) {
+                    BatchResult.Estimate estimate = summary.estimate(metric);
+                    line.append(',').append(estimate.getMean()).append(',').append(estimate.getLow()).append(',')
+                            .append(estimate.getHigh());
+                }
+                PatientStatistics patients = summary.getPatientStatistics();
+                line.append(',').append(patients.get(PatientStatistics.Metric.WAIT).getQuantile(0.9))
+                        .append(',').append(patients.get(PatientStatistics.Metric.LENGTH_OF_STAY).getQuantile(0.9))
+                        .append('\n');
+                out.write(line.toString());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package simulation;
+
+import org.mariuszgromada.math.mxparser.Argument;
+import org.mariuszgromada.math.mxparser.Expression;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Compiles the patient arrival functions from config.json into {@link DoubleUnaryOperator} trees of the variable t.
+ * <p>
+ * The functions are written in mXparser syntax. mXparser interprets an expression on every call, which made it the
+ * most expensive part of arrival generation, so each expression string is parsed once here and the result is cached
+ * and shared by all simulators. Constant sub-expressions such as {@code pi/12} are folded at compile time.
+ * </p>
+ * Supported syntax: numbers, {@code t}, {@code pi}, {@code e}, {@code + - * / ^}, parentheses and the functions
+ * {@code sin, cos, tan, exp, ln, log10, sqrt, abs, floor, ceil} and variadic {@code min, max}. Anything else falls
+ * back to evaluating the expression with mXparser.
+ */
+public final class ArrivalFunctionCompiler {
+    private static final Map<String, DoubleUnaryOperator> CACHE = new ConcurrentHashMap<>();
+
+    private ArrivalFunctionCompiler() {}
+
+    /**
+     * Returns the compiled form of an arrival function, compiling it on first use.
+     *
+     * @param expression The arrival function in mXparser syntax, in the variable t.
+     * @return A function from t to the arrival rate multiplier.
+     */
+    public static DoubleUnaryOperator compile(String expression) {
+        return CACHE.computeIfAbsent(expression, ArrivalFunctionCompiler::compileUncached);
+    }
+
+    private static DoubleUnaryOperator compileUncached(String expression) {
+        try {
+            return new Parser(expression).parse().function;
+        } catch (IllegalArgumentException e) {
+            System.out.println("Arrival function '" + expression + "' could not be compiled (" + e.getMessage()
+                    + "), falling back to mXparser.");
+            return interpreted(expression);
+        }
+    }
+
+    private static DoubleUnaryOperator interpreted(String expression) {
+        Argument t = new Argument("t=0");
+        Expression interpreted = new Expression(expression, t);
+        return value -> {
+            synchronized (interpreted) {
+                t.setArgumentValue(value);
+                return interpreted.calculate();
+            }
+        };
+    }
+
+    /**
+     * A compiled sub-expression, remembering whether it depends on t so constants can be folded.
+     */
+    private static final class Node {
+        private final DoubleUnaryOperator function;
+        private final boolean constant;
+        private final double value;
+
+        private Node(DoubleUnaryOperator function) {
+            this.function = function;
+            this.constant = false;
+            this.value = Double.NaN;
+        }
+
+        private Node(double value) {
+            this.function = t -> value;
+            this.constant = true;
+            this.value = value;
+        }
+
+        private static Node unary(Node operand, DoubleUnaryOperator op) {
+            if (operand.constant) {
+                return new Node(op.applyAsDouble(operand.value));
+            }
+            DoubleUnaryOperator f = operand.function;
+            return new Node(t -> op.applyAsDouble(f.applyAsDouble(t)));
+        }
+
+        private static Node binary(Node left, Node right, DoubleBinaryOperator op) {
+            if (left.constant && right.constant) {
+                return new Node(op.applyAsDouble(left.value, right.value));
+            }
+            DoubleUnaryOperator l = left.function;
+            DoubleUnaryOperator r = right.function;
+            if (right.constant) {
+                double c = right.value;
+                return new Node(t -> op.applyAsDouble(l.applyAsDouble(t), c));
+            }
+            if (left.constant) {
+                double c = left.value;
+                return new Node(t -> op.applyAsDouble(c, r.applyAsDouble(t)));
+            }
+            return new Node(t -> op.applyAsDouble(l.applyAsDouble(t), r.applyAsDouble(t)));
+        }
+    }
+
+    /**
+     * Recursive-descent parser with the usual precedence: {@code + -} below {@code * /} below unary minus below
+     * {@code ^} (right associative).
+     */
+    private static final class Parser {
+        private final String source;
+        private int pos;
+
+        private Parser(String source) {
+            this.source = source;
+            this.pos = 0;
+        }
+
+        private Node parse() {
+            Node result = parseSum();
+            skipWhitespace();
+            if (pos < source.length()) {
+                throw error("unexpected '" + source.charAt(pos) + "'");
+            }
+            return result;
+        }
+
+        private Node parseSum() {
+            Node left = parseProduct();
+            while (true) {
+                if (accept('+')) {
+                    left = Node.binary(left, parseProduct(), Double::sum);
+                } else if (accept('-')) {
+                    left = Node.binary(left, parseProduct(), (a, b) -> a - b);
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        private Node parseProduct() {
+            Node left = parseUnary();
+            while (true) {
+                if (accept('*')) {
+                    left = Node.binary(left, parseUnary(), (a, b) -> a * b);
+                } else if (accept('/')) {
+                    left = Node.binary(left, parseUnary(), (a, b) -> a / b);
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        private Node parseUnary() {
+            if (accept('-')) {
+                return Node.unary(parseUnary(), a -> -a);
+            }
+            if (accept('+')) {
+                return parseUnary();
+            }
+            return parsePower();
+        }
+
+        private Node parsePower() {
+            Node base = parsePrimary();
+            if (accept('^')) {
+                return Node.binary(base, parseUnary(), Math::pow);
+            }
+            return base;
+        }
+
+        private Node parsePrimary() {
+            skipWhitespace();
+            if (pos >= source.length()) {
+                throw error("unexpected end of expression");
+            }
+            char c = source.charAt(pos);
+            if (accept('(')) {
+                Node inner = parseSum();
+                expect(')');
+                return inner;
+            }
+            if (Character.isDigit(c) || c == '.') {
+                return new Node(parseNumber());
+            }
+            if (Character.isLetter(c)) {
+                String name = parseIdentifier();
+                skipWhitespace();
+                if (pos < source.length() && source.charAt(pos) == '(') {
+                    return parseFunction(name);
+                }
+                switch (name) {
+                    case "t":
+                        return new Node(t -> t);
+                    case "pi":
+                        return new Node(Math.PI);
+                    case "e":
+                        return new Node(Math.E);
+                    default:
+                        throw error("unknown symbol '" + name + "'");
+                }
+            }
+            throw error("unexpected '" + c + "'");
+        }
+
+        private Node parseFunction(String name) {
+            expect('(');
+            List<Node> args = new ArrayList<>();
+            args.add(parseSum());
+            while (accept(',')) {
+                args.add(parseSum());
+            }
+            expect(')');
+            switch (name) {
+                case "min":
+                    return fold(args, Math::min);
+                case "max":
+                    return fold(args, Math::max);
+                default:
+                    if (args.size() != 1) {
+                        throw error("function '" + name + "' takes one argument");
+                    }
+                    return Node.unary(args.get(0), unaryFunction(name));
+            }
+        }
+
+        private DoubleUnaryOperator unaryFunction(String name) {
+            switch (name) {
+                case "sin": return Math::sin;
+                case "cos": return Math::cos;
+                case "tan": return Math::tan;
+                case "exp": return Math::exp;
+                case "ln": return Math::log;
+                case "log10": return Math::log10;
+                case "sqrt": return Math::sqrt;
+                case "abs": return Math::abs;
+                case "floor": return Math::floor;
+                case "ceil": return Math::ceil;
+                default:
+                    throw error("unknown function '" + name + "'");
+            }
+        }
+
+        private Node fold(List<Node> args, DoubleBinaryOperator op) {
+            Node result = args.get(0);
+            for (int i = 1; i < args.size(); i++) {
+                result = Node.binary(result, args.get(i), op);
+            }
+            return result;
+        }
+
+        private double parseNumber() {
+            int start = pos;
+            while (pos < source.length() && (Character.isDigit(source.charAt(pos)) || source.charAt(pos) == '.')) {
+                pos++;
+            }
+            if (pos < source.length() && (source.charAt(pos) == 'e' || source.charAt(pos) == 'E')) {
+                int exponent = pos + 1;
+                if (exponent < source.length() && (source.charAt(exponent) == '+' || source.charAt(exponent) == '-')) {
+                    exponent++;
+                }
+                if (exponent < source.length() && Character.isDigit(source.charAt(exponent))) {
+                    pos = exponent;
+                    while (pos < source.length() && Character.isDigit(source.charAt(pos))) {
+                        pos++;
+                    }
+                }
+            }
+            try {
+                return Double.parseDouble(source.substring(start, pos));
+            } catch (NumberFormatException e) {
+                throw error("malformed number '" + source.substring(start, pos) + "'");
+            }
+        }
+
+        private String parseIdentifier() {
+            int start = pos;
+            while (pos < source.length()
+                    && (Character.isLetterOrDigit(source.charAt(pos)) || source.charAt(pos) == '_')) {
+                pos++;
+            }
+            return source.substring(start, pos);
+        }
+
+        private boolean accept(char c) {
+            skipWhitespace();
+            if (pos < source.length() && source.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!accept(c)) {
+                throw error("expected '" + c + "'");
+            }
+        }
+
+        private void skipWhitespace() {
+            while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + pos);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package simulation;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Hourly patient arrival intensities for one scenario, tabulated once over the simulation horizon together with
+ * their running total, the cumulative intensity.
+ * <p>
+ * The arrival functions are evaluated at whole hours, so the intensity is constant within each hour. That makes the
+ * cumulative intensity piecewise linear, and a non-homogeneous Poisson process can be sampled exactly by inversion:
+ * the next arrival is the time at which the cumulative intensity has grown by a unit-mean exponential draw. Each
+ * inversion is a binary search over the table, and the arrival functions are never evaluated during the run.
+ * </p>
+ * Tables are immutable and can be shared between simulations.
+ */
+public final class ArrivalIntensityTable {
+    private static final double SECONDS_PER_HOUR = 3600.0;
+
+    // Arrival multipliers for each day of the week (Monday = index 0)
+    private static final double[] WEEKDAY_FACTORS = {
+        0.8647, 1.1324, 1.0294, 1.0294, 1.0294, 1.0088, 0.9059
+    };
+    // Arrival multipliers for each hour of the day
+    private static final double[] HOUR_FACTORS = {
+        0.5236, 0.48,    0.4364, 0.3927, 0.3927, 0.3927, 0.3927, 0.5236,
+        0.96,   1.5273,  1.7455, 1.6582, 1.44,   1.3091, 1.6582, 1.3964,
+        1.1782, 1.1782,  1.1782, 1.1782, 1.1782, 1.1782, 0.96,   0.7418
+    };
+
+    private final double[] hourlyRates; // expected arrivals during each hour
+    private final double[] cumulative;  // cumulative[h] = expected arrivals before hour h
+
+    private ArrivalIntensityTable(double[] hourlyRates) {
+        this.hourlyRates = hourlyRates;
+        this.cumulative = new double[hourlyRates.length + 1];
+        for (int h = 0; h < hourlyRates.length; h++) {
+            cumulative[h + 1] = cumulative[h] + hourlyRates[h];
+        }
+    }
+
+    /**
+     * Tabulates the DES arrival process, where the mean interarrival time at hour t is
+     * {@code interarrivalTimeMins / f(t)}.
+     *
+     * @param arrivalFunction      The arrival rate multiplier f, evaluated at whole hours since the start.
+     * @param interarrivalTimeMins The mean interarrival time in minutes when f(t) = 1.
+     * @param hours                The number of hours to tabulate.
+     * @return The intensity table.
+     */
+    public static ArrivalIntensityTable forInterarrivalTime(DoubleUnaryOperator arrivalFunction,
+                                                            double interarrivalTimeMins, int hours) {
+        double arrivalsPerHour = 60.0 / interarrivalTimeMins;
+        double[] rates = new double[hours];
+        for (int h = 0; h < hours; h++) {
+            rates[h] = Math.max(0.0, arrivalsPerHour * arrivalFunction.applyAsDouble(h));
+        }
+        return new ArrivalIntensityTable(rates);
+    }
+
+    /**
+     * Tabulates the calendar-based arrival process used by {@link PoissonSimulator}: the arrival function gives an
+     * average daily rate for the month, which is scaled by weekday and hour-of-day factors.
+     *
+     * @param arrivalFunction The average daily arrival rate, evaluated at the month number (1-12).
+     * @param start           The calendar time of hour 0.
+     * @param hours           The number of hours to tabulate.
+     * @return The intensity table.
+     */
+    public static ArrivalIntensityTable forCalendar(DoubleUnaryOperator arrivalFunction, LocalDateTime start,
+                                                    int hours) {
+        double[] rates = new double[hours];
+        LocalDateTime time = start;
+        for (int h = 0; h < hours; h++) {
+            double averageDailyRate = arrivalFunction.applyAsDouble(time.getMonthValue());
+            double weekdayRate = averageDailyRate * WEEKDAY_FACTORS[time.getDayOfWeek().getValue() - 1];
+            rates[h] = Math.max(0.0, (weekdayRate / 24) * HOUR_FACTORS[time.getHour()]);
+            time = time.plusHours(1);
+        }
+        return new ArrivalIntensityTable(rates);
+    }
+
+    /**
+     * @return The number of hours covered by the table.
+     */
+    public int getHours() {
+        return hourlyRates.length;
+    }
+
+    /**
+     * @param hour The hour since the start of the table.
+     * @return The expected number of arrivals during that hour.
+     */
+    public double expectedArrivals(int hour) {
+        return hourlyRates[hour];
+    }
+
+    /**
+     * @param seconds A time in seconds since the start of the table.
+     * @return The expected number of arrivals before that time.
+     */
+    public double cumulativeIntensity(double seconds) {
+        if (seconds <= 0) {
+            return 0.0;
+        }
+        int hour = (int) (seconds / SECONDS_PER_HOUR);
+        if (hour >= hourlyRates.length) {
+            return cumulative[hourlyRates.length];
+        }
+        return cumulative[hour] + hourlyRates[hour] * (seconds / SECONDS_PER_HOUR - hour);
+    }
+
+    /**
+     * Inverts the cumulative intensity.
+     *
+     * @param expectedArrivals A value of the cumulative intensity.
+     * @return The time in seconds at which the cumulative intensity reaches the value, or
+     *         {@link Double#POSITIVE_INFINITY} if it is not reached within the table.
+     */
+    public double timeOf(double expectedArrivals) {
+        if (expectedArrivals >= cumulative[hourlyRates.length]) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if (expectedArrivals <= 0) {
+            return 0.0;
+        }
+        // Last hour whose cumulative intensity at its start is <= the target. Its rate is positive, because the
+        // cumulative intensity at its end is above the target.
+        int index = Arrays.binarySearch(cumulative, 0, hourlyRates.length, expectedArrivals);
+        int hour = index >= 0 ? lastHourStartingAt(index) : -index - 2;
+        return (hour + (expectedArrivals - cumulative[hour]) / hourlyRates[hour]) * SECONDS_PER_HOUR;
+    }
+
+    private int lastHourStartingAt(int index) {
+        // Hours with zero intensity share a cumulative value; the target lies in the last of them
+        while (index + 1 < hourlyRates.length && cumulative[index + 1] == cumulative[index]) {
+            index++;
+        }
+        return index;
+    }
+}
@@ -1,17 +1,23 @@
 package simulation;
 
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.Getter;
-import lombok.Setter;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Singleton class that parses the config.json file into a Config instance
  * so that the rest of the simulation can access configuration parameters.
+ * Instances are read-only, so they can be shared between threads; simulations take theirs from a {@link RunConfig}.
  *
  * IMPORTANT: To change configuration values, edit config.json directly. Comments should be added here,
  * not in the JSON file.
@@ -22,8 +28,11 @@ import java.util.Map;
  *   • If the field name in JSON differs, use {@link JsonProperty} (e.g., @JsonProperty("foo")).
  *   • If the field is a custom type, ensure that its fields match the JSON structure.
  */
+// Read and written through the fields, which have no setters, and not through the getters, whose names Jackson
+// derives differently for fields like ERCapacity
+@JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY, getterVisibility = JsonAutoDetect.Visibility.NONE,
+        isGetterVisibility = JsonAutoDetect.Visibility.NONE)
 @Getter
-@Setter
 @JsonIgnoreProperties(ignoreUnknown = false)
 public final class Config {
     private static Config instance;
@@ -53,6 +62,16 @@ public final class Config {
     private Map<String, Double> triagePhysicianRequirements;
     private Map<String, Double> hourlyWages;
     private Map<String, Double> avgTreatmentTimesMins;
+    // Mean time (exponentially distributed) a waiting patient of each triage level stays before leaving without
+    // being seen. 0 means patients of that level never leave.
+    private Map<String, Double> renegingPatienceMins;
+    // Priority aging: minutes a waiting patient of each triage level must wait to gain one level of priority (0 means
+    // no aging), and the most levels a patient can gain this way.
+    private Map<String, Double> priorityAgingMins;
+    private int maxPriorityAgingLevels;
+    // Mean time (exponentially distributed) until a waiting patient of each triage level deteriorates to the next
+    // more urgent level. 0 means patients of that level do not deteriorate while waiting.
+    private Map<String, Double> deteriorationMeanMins;
     @JsonProperty("LPNRatio")
     private double LPNRatio;
     @JsonProperty("CNARatio")
@@ -63,9 +82,21 @@ public final class Config {
     private int estNonTraumaPatientsDay;
     private int estNonTraumaPatientsEvening;
     private int estNonTraumaPatientsNight;
-    private int interarrivalTimeMins;
+    private double interarrivalTimeMins;
     private boolean useUnlimitedStaff;
+    // STRICT_PRIORITY or BACKFILL, see DispatchPolicy
+    private DispatchPolicy dispatchPolicy;
     private boolean visualize;
+    // Treated patients kept in memory for inspection: -1 keeps all of them, 0 none, and n a uniform random sample of n.
+    // Summary statistics are kept for every patient regardless, see PatientStatistics.
+    private int patientSampleSize;
+    // Where the hourly log is written: a directory (empty for the working directory) and a file name pattern, without
+    // extension, in which {timestamp} and {seed} are replaced by the start time and seed of the run. The log is
+    // written once per output format (CSV and/or BINARY, see OutputFormat), each with its own extension; JOURNEYS adds
+    // a log of every patient's journey.
+    private String outputDirectory;
+    private String outputFilePattern;
+    private List<OutputFormat> outputFormats;
     private boolean useRandomSchedule;
     private boolean useHistoricalAdjustment;
 
@@ -79,14 +110,72 @@ public final class Config {
      * @return The Config singleton instance.
      * @throws IOException If the JSON file cannot be read or parsed.
      */
-    public static Config getInstance() throws IOException {
+    public static synchronized Config getInstance() throws IOException {
         if (instance == null) {
             ObjectMapper mapper = new ObjectMapper();
             instance = mapper.readValue(
                 Config.class.getResource("../config.json"),
                 Config.class
-            );
+            ).freeze();
         }
         return instance;
     }
+
+    /**
+     * Creates a copy of this configuration with some values replaced, so that simulations with different settings can
+     * run side by side without touching the shared instance.
+     *
+     * @param overrides New values by config.json name; entries of map values are named with a dot, e.g.
+     *                  {@code "staffCounts.REGISTERED_NURSE"}.
+     * @return The copy.
+     * @throws IllegalArgumentException If a name is not in config.json or a value does not fit its variable.
+     */
+    public Config withOverrides(Map<String, Object> overrides) {
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode root = mapper.valueToTree(this);
+        for (Map.Entry<String, Object> override : overrides.entrySet()) {
+            String[] path = override.getKey().split("\\.");
+            ObjectNode parent = root;
+            for (int i = 0; i < path.length - 1; i++) {
+                if (!(parent.get(path[i]) instanceof ObjectNode child)) {
+                    throw new IllegalArgumentException("Unknown configuration variable " + override.getKey());
+                }
+                parent = child;
+            }
+            String name = path[path.length - 1];
+            // Map entries must exist too: config.json lists every valid key, and unknown keys would be ignored
+            if (!parent.has(name)) {
+                throw new IllegalArgumentException("Unknown configuration variable " + override.getKey());
+            }
+            parent.set(name, mapper.valueToTree(override.getValue()));
+        }
+        try {
+            return mapper.treeToValue(root, Config.class).freeze();
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid configuration override: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    /**
+     * Makes the collections of a newly read configuration unmodifiable, so that the instance cannot change once it is
+     * shared.
+     */
+    private Config freeze() {
+        patientArrivalFunctions = freeze(patientArrivalFunctions);
+        staffCounts = freeze(staffCounts);
+        triageNurseRequirements = freeze(triageNurseRequirements);
+        triageRPRequirements = freeze(triageRPRequirements);
+        triagePhysicianRequirements = freeze(triagePhysicianRequirements);
+        hourlyWages = freeze(hourlyWages);
+        avgTreatmentTimesMins = freeze(avgTreatmentTimesMins);
+        renegingPatienceMins = freeze(renegingPatienceMins);
+        priorityAgingMins = freeze(priorityAgingMins);
+        deteriorationMeanMins = freeze(deteriorationMeanMins);
+        outputFormats = outputFormats == null ? null : List.copyOf(outputFormats);
+        return this;
+    }
+
+    private static <V> Map<String, V> freeze(Map<String, V> map) {
+        return map == null ? null : Collections.unmodifiableMap(new LinkedHashMap<>(map));
+    }
 }
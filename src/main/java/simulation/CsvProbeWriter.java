@@ -0,0 +1,93 @@
+package simulation;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Streams the samples of a {@link Probes} subscription to a CSV file as the simulation runs, one row per sample.
+ * <p>
+ * Rows go through a buffered writer and nothing is kept in memory, so a log costs the same however long the simulation
+ * runs. The first column numbers the interval the sample closes, counting from 1 like the hours of the original hourly
+ * log, and the values are written as whole numbers, truncated like that log. Call {@link #flush()} at natural checkpoints, such as the end of a
+ * scheduling cycle, so that a crashed run still leaves every completed checkpoint on disk.
+ * </p>
+ */
+public class CsvProbeWriter implements ProbeListener, Closeable {
+    private final File file;
+    private final Writer writer;
+    private final long startTime;
+    private final long intervalSecs;
+    private final StringBuilder row = new StringBuilder();
+
+    /**
+     * Creates the file, and its directory if needed, and writes the header.
+     *
+     * @param file         The file to write.
+     * @param header       The column names, the first one naming the interval index.
+     * @param startTime    The start time of the subscription in seconds.
+     * @param intervalSecs The sampling interval of the subscription in seconds.
+     * @throws FileNotFoundException If the file cannot be created.
+     */
+    public CsvProbeWriter(File file, List<String> header, long startTime, long intervalSecs)
+            throws FileNotFoundException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (directory != null) {
+            directory.mkdirs();
+        }
+        this.file = file;
+        this.writer = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 1 << 16);
+        this.startTime = startTime;
+        this.intervalSecs = intervalSecs;
+        write(String.join(",", header));
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public void onSample(long time, double[] values) {
+        row.setLength(0);
+        row.append((time - startTime) / intervalSecs);
+        for (double value : values) {
+            row.append(',').append((long) value);
+        }
+        write(row);
+    }
+
+    @Override
+    public void flush() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write " + file, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write " + file, e);
+        }
+    }
+
+    private void write(CharSequence line) {
+        try {
+            writer.append(line).append('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write " + file, e);
+        }
+    }
+}
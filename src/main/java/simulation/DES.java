@@ -1,128 +1,302 @@
 package simulation;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.time.DateTimeException;
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.DoubleUnaryOperator;
 
-import org.apache.commons.math3.distribution.ExponentialDistribution;
-import org.apache.commons.math3.distribution.NormalDistribution;
-import org.mariuszgromada.math.mxparser.Argument;
-import org.mariuszgromada.math.mxparser.Expression;
 import scheduling.*;
 import simulation.triage_classifiers.CTAS;
 import simulation.triage_classifiers.ESI;
 import simulation.triage_classifiers.MTS;
 import simulation.triage_classifiers.TriageClassifier;
+import lombok.AccessLevel;
 import lombok.Getter;
 import staff.*;
 
 /**
  * Contains the Discrete Event Simulation for the ER and its associated data collection for the GUI.
+ * <p>
+ * A simulation can be reused for another run with {@link #reset(long, RunConfig)}, which keeps its event set, waiting
+ * room and probes instead of building them anew.
+ * </p>
  */
 @Getter
 public class DES {
-    private final Config config;
+    @Getter(AccessLevel.NONE)
+    private final RunConfig baseConfig; // the configuration the simulation was created with, see reset(long, Map)
+    private RunConfig runConfig;
+    private Config config;
     private final EmergencyRoom er;
-    private final Random random;
+    private final Dispatcher dispatcher;
+    private RandomStreams streams;
+    private SplittableRandom arrivalRandom;
+    private SplittableRandom patienceRandom;
+    private SplittableRandom deteriorationRandom;
     private final BaselineScheduler scheduler;
-    private final Expression arrivalExpression;
-    private final Argument t;
-    private final Map<Patient.TriageLevel, Double> avgTreatmentTimes;
-    private LinkedList<Event> eventList; // Changed to LinkedList for removeFirst/removeLast
-    private Duration deltaTime;
-    private double interarrivalTimeMins;
+    private DoubleUnaryOperator arrivalFunction;
+    private String arrivalFunctionName; // the key of arrivalFunction in config.json's patientArrivalFunctions
+    private ArrivalIntensityTable arrivalIntensities;
+    private final ExponentialSampler unitExponential;
+    private double arrivalIntensityPosition; // cumulative arrival intensity at the last sampled arrival
+    private Map<Patient.TriageLevel, Double> avgTreatmentTimes;
+    private double[] meanPatienceSecs; // per triage level ordinal, 0 if patients of that level never renege
+    private double[] meanDeteriorationSecs; // per triage level ordinal, 0 if waiting patients never deteriorate
+    private PatientGenerator patientGenerator;
+    private static final long SECONDS_PER_MINUTE = 60;
+    private static final long SECONDS_PER_HOUR = 3600;
+    // The columns of the hourly CSV log, after the hour itself, and the probes they are read from
+    private static final List<String> CSV_HEADER = List.of("Hour", "Arrivals", "Waiting", "Treating", "Available Rooms",
+            "Total Treatment Time", "Average Treatment Time", "Total Wait Time", "Average Wait Time", "Total Arrivals");
+    private static final List<RunFile.ColumnType> CSV_TYPES = List.of(RunFile.ColumnType.INT, RunFile.ColumnType.INT,
+            RunFile.ColumnType.INT, RunFile.ColumnType.INT, RunFile.ColumnType.INT, RunFile.ColumnType.DOUBLE,
+            RunFile.ColumnType.DOUBLE, RunFile.ColumnType.DOUBLE, RunFile.ColumnType.DOUBLE, RunFile.ColumnType.INT);
+    private static final List<String> CSV_PROBES = List.of("arrivals", "waiting", "treating", "rooms.available",
+            "treatmentTime.total", "treatmentTime.average", "waitTime.total", "waitTime.average", "arrivals.total");
+    /** The probes recorded every hour for the GUI and the CSV log. */
+    public static final List<String> HOURLY_PROBES = hourlyProbes();
+
+    private final FutureEventSet eventList;
+    // Patients of the events in the current batch, reused between batches
+    @Getter(AccessLevel.NONE)
+    private final List<Patient> batchArrivals = new ArrayList<>();
+    @Getter(AccessLevel.NONE)
+    private final List<Patient> batchReleases = new ArrayList<>();
+    @Getter(AccessLevel.NONE)
+    private final List<Patient> batchReneges = new ArrayList<>();
+    @Getter(AccessLevel.NONE)
+    private final List<Patient> batchDeteriorations = new ArrayList<>();
+    private long currentTime; // simulation clock, in seconds since the start of the simulation
+    private long simulationEnd;
     private final boolean DETAILED_LOGGING = false; // Changed to false for web interface
     private int eventsProcessed = 0;
     private int patientsTreated;
     private int patientsRejected;
+    private int patientsLeftWithoutBeingSeen;
+    private final int[] leftWithoutBeingSeen; // per triage level ordinal
+    private int patientsDeteriorated;
     private LocalDateTime startTime;
     
+    // Probes for data collection: every metric is registered by name and only sampled if subscribed
+    private final Probes probes;
+    @Getter(AccessLevel.NONE)
+    private final ProbeDistribution waitTimeMins;
+    private boolean recordHourlyData; // keep the HOURLY_PROBES in memory for the GUI
+    private boolean quiet; // no progress output, for batch runs
+    private ProbeRecorder hourlyData; // the HOURLY_PROBES, sampled at the end of every hour, if recorded
+    @Getter(AccessLevel.NONE)
+    private JourneyLogWriter journeyLog; // every patient's journey, null unless the JOURNEYS output is enabled
+
     // Additional fields for data collection and configuration - GUI RELATED
-    private int[][] data;
-    private List<Patient> treatedPatients;
-    private List<Patient> treatingPatients;
-    private Map<String, Object> hyperparameters;
+    private final PatientStatistics patientStatistics; // wait, treatment and length of stay of every patient
+    private PatientSample patientSample; // the treated patients kept, see Config.patientSampleSize
+    private final List<Patient> treatingPatients;
     private Patient.TriageLevel focusTriageLevel;
-    private String scenarioType;
     private TriageClassifier triageClassifier;
     private OptimizedScheduleOutput nurseSchedule;
     private OptimizedScheduleOutput physicianSchedule;
     private OptimizedScheduleOutput residentSchedule;
-    private String stringOutputData;
     private boolean useUnlimitedStaff;
     private final boolean useRandomSchedule;
     private int totalArrivals;
-    private int hourlyArrivals;
     private int totalERAdmissions;
     private double totalTreatmentTime;
     private double avgTreatmentTime;
     private double totalWaitTime;
     private double avgWaitTime;
 
+    /**
+     * Creates a simulation with a randomly chosen seed, printed on start so the run can be reproduced.
+     */
     public DES() throws IOException {
-        this.totalTreatmentTime=0;
-        this.stringOutputData = "Hour,Arrivals,Waiting,Treating,Available Rooms,Total Treatment Time," +
-                "Average Treatment Time,Total Wait Time,Average Wait Time,Total Arrivals\n";
+        this(RandomStreams.withRandomSeed(), RunConfig.defaults());
+    }
+
+    /**
+     * Creates a reproducible simulation. Runs with the same seed and configuration produce the same results, and
+     * runs with the same seed but a different classifier or staffing see the same arrivals and patient draws.
+     * @param seed the seed all random streams of the run are derived from
+     */
+    public DES(long seed) throws IOException {
+        this(new RandomStreams(seed), RunConfig.defaults());
+    }
+
+    /**
+     * Creates a reproducible simulation of a given configuration, e.g. config.json with some values overridden, see
+     * {@link RunConfig#withOverrides(Map)}. Simulations of different configurations can run side by side.
+     * @param seed the seed all random streams of the run are derived from
+     * @param runConfig the configuration of the run
+     */
+    public DES(long seed, RunConfig runConfig) {
+        this(new RandomStreams(seed), runConfig);
+    }
+
+    private DES(RandomStreams streams, RunConfig runConfig) {
+        this.baseConfig = runConfig;
         this.useRandomSchedule = false;
         this.scheduler = new BaselineScheduler();
-        this.patientsRejected = 0;
+        this.eventList = new FutureEventSet();
+        this.er = new EmergencyRoom(runConfig);
+        this.dispatcher = new Dispatcher(er, DispatchPolicy.STRICT_PRIORITY, false); // configured in prepare
+        this.unitExponential = new ExponentialSampler(1.0);
+        this.leftWithoutBeingSeen = new int[Patient.TriageLevel.values().length];
+        this.treatingPatients = new ArrayList<>();
+        this.patientStatistics = new PatientStatistics();
+        this.probes = new Probes();
+        er.registerProbes(probes);
+        this.waitTimeMins = registerProbes(probes);
+        prepare(streams, runConfig);
+    }
+
+    /**
+     * Readies the simulation for a run of another seed and configuration, as if it had just been created with them,
+     * but keeping its event set, waiting room, probes and other allocated state. Only whether the run is quiet and
+     * records hourly data carries over; the classifier and dispatch policy are back to those of the configuration.
+     * The previous run's {@link PatientStatistics} are cleared for reuse, so callers copy what they need first; its
+     * {@link PatientSample} and hourly data are replaced and stay valid.
+     * @param seed the seed all random streams of the run are derived from
+     * @param runConfig the configuration of the run
+     */
+    public void reset(long seed, RunConfig runConfig) {
+        eventList.clear();
+        er.reset(runConfig);
+        probes.unsubscribeAll();
+        treatingPatients.clear();
+        batchArrivals.clear();
+        batchReleases.clear();
+        batchReneges.clear();
+        batchDeteriorations.clear();
+        Arrays.fill(leftWithoutBeingSeen, 0);
+        this.currentTime = 0;
+        this.simulationEnd = 0;
+        this.eventsProcessed = 0;
         this.patientsTreated = 0;
-        this.eventList = new LinkedList<>();
-        this.deltaTime = Duration.ZERO;
-        this.config = Config.getInstance();
+        this.patientsRejected = 0;
+        this.patientsLeftWithoutBeingSeen = 0;
+        this.patientsDeteriorated = 0;
+        this.totalArrivals = 0;
+        this.totalERAdmissions = 0;
+        this.totalTreatmentTime = 0;
+        this.avgTreatmentTime = 0;
+        this.totalWaitTime = 0;
+        this.avgWaitTime = 0;
+        this.arrivalIntensities = null;
+        this.arrivalIntensityPosition = 0;
+        this.hourlyData = null;
+        this.nurseSchedule = null;
+        this.physicianSchedule = null;
+        this.residentSchedule = null;
+        this.startTime = null;
+        patientStatistics.clear();
+        prepare(new RandomStreams(seed), runConfig);
+    }
+
+    /**
+     * Readies the simulation for a run of another seed, with some values of the configuration it was created with
+     * overridden, see {@link #reset(long, RunConfig)}.
+     * @param seed the seed all random streams of the run are derived from
+     * @param overrides new values by config.json name, see {@link Config#withOverrides(Map)}
+     * @throws IllegalArgumentException if a name is not in config.json or a value does not fit its variable
+     */
+    public void reset(long seed, Map<String, Object> overrides) {
+        reset(seed, baseConfig.withOverrides(overrides));
+    }
+
+    /**
+     * Sets up everything that depends on the run's seed and configuration.
+     */
+    private void prepare(RandomStreams streams, RunConfig runConfig) {
+        this.streams = streams;
+        this.runConfig = runConfig;
+        this.config = runConfig.getConfig();
         this.useUnlimitedStaff = config.isUseUnlimitedStaff();
-        this.interarrivalTimeMins = config.getInterarrivalTimeMins();
-        this.er = new EmergencyRoom(
-                config.getERName(),
-                config.getERCapacity(),
-                config.getERTreatmentRooms()
-        );
-        this.random = new Random();
-        this.t = new Argument("t=0");
-
-        String exprString = config.getPatientArrivalFunctions()
-                .get(config.getDefaultArrivalFunction());
-        this.arrivalExpression = new Expression(exprString, t);
-        System.out.println(
-                "Initialized with expression '"
-                        + config.getDefaultArrivalFunction()
-                        + "': f(t) = "
-                        + arrivalExpression.getExpressionString()
-        );
+        dispatcher.setPolicy(config.getDispatchPolicy() != null ? config.getDispatchPolicy() : DispatchPolicy.STRICT_PRIORITY);
+        dispatcher.setUnlimitedStaff(useUnlimitedStaff);
+        this.arrivalRandom = streams.get(RandomStreams.Stream.ARRIVALS);
+        this.patienceRandom = streams.get(RandomStreams.Stream.PATIENCE);
+        this.deteriorationRandom = streams.get(RandomStreams.Stream.DETERIORATION);
+        this.arrivalFunctionName = config.getDefaultArrivalFunction();
+        this.arrivalFunction = runConfig.arrivalFunction(arrivalFunctionName);
+        log("Initialized with expression '" + arrivalFunctionName + "': f(t) = "
+                + config.getPatientArrivalFunctions().get(arrivalFunctionName));
+
+        this.avgTreatmentTimes = runConfig.getAvgTreatmentTimes();
+        this.meanPatienceSecs = runConfig.meanPatienceSecs();
+        this.meanDeteriorationSecs = runConfig.meanDeteriorationSecs();
+        er.getWaitingPatients().setAging(runConfig.priorityAgingMins(), config.getMaxPriorityAgingLevels());
 
-        this.avgTreatmentTimes = Map.of(
-                Patient.TriageLevel.RED, config.getAvgTreatmentTimesMins().get("RED"),
-                Patient.TriageLevel.ORANGE,  config.getAvgTreatmentTimesMins().get("ORANGE"),
-                Patient.TriageLevel.YELLOW,  config.getAvgTreatmentTimesMins().get("YELLOW"),
-                Patient.TriageLevel.GREEN,  config.getAvgTreatmentTimesMins().get("GREEN"),
-                Patient.TriageLevel.BLUE,  config.getAvgTreatmentTimesMins().get("BLUE")
-        );
-        
         // Initialize new fields - FOR GUI
-        this.treatedPatients = new ArrayList<>();
-        this.treatingPatients = new ArrayList<>();
-        this.hyperparameters = new HashMap<>();
+        this.patientSample = new PatientSample(config.getPatientSampleSize(), streams.get(RandomStreams.Stream.PATIENT_SAMPLE));
         this.focusTriageLevel = null;
-        this.scenarioType = "regular"; // Default scenario
         this.triageClassifier = new CTAS(); // Default triage classifier mts ctas esi
+        this.patientGenerator = new PatientGenerator(
+                streams,
+                triageClassifier,
+                runConfig.getTreatmentTimeSampler(),
+                config.getPatientMinAge(),
+                config.getPatientMaxAge()
+        );
     }
 
     /**
      * Starts the simulation, starting at midnight. All parameters except Duration are from the config.json file.
      * @param totalSimulationDuration the duration of the simulation.2
+     * @throws IOException if the hourly log cannot be created
      */
 // In src/main/java/simulation/DES.java
 
-    public void start(Duration totalSimulationDuration) throws FileNotFoundException {
+    public void start(Duration totalSimulationDuration) throws IOException {
+        // Stream the hourly log to disk, in each configured format, as the simulation runs
+        String logName = OutputFormat.baseName(config.getOutputFilePattern(), streams.getSeed());
+        List<OutputFormat> formats = config.getOutputFormats();
+        File csvFile = formats.contains(OutputFormat.CSV) ? OutputFormat.CSV.file(config.getOutputDirectory(), logName) : null;
+        File runFile = formats.contains(OutputFormat.BINARY) ? OutputFormat.BINARY.file(config.getOutputDirectory(), logName) : null;
+        File journeyFile = formats.contains(OutputFormat.JOURNEYS) ? OutputFormat.JOURNEYS.file(config.getOutputDirectory(), logName) : null;
+        int hours = (int) ((totalSimulationDuration.toSeconds() + SECONDS_PER_HOUR - 1) / SECONDS_PER_HOUR);
+        try (CsvProbeWriter csvLog = csvFile == null ? null : new CsvProbeWriter(csvFile, CSV_HEADER, currentTime, SECONDS_PER_HOUR);
+             RunFileWriter runLog = runFile == null ? null : new RunFileWriter(runFile, CSV_HEADER, CSV_TYPES,
+                     runConfig.getContentHash(), streams.getSeed(), currentTime, SECONDS_PER_HOUR, hours);
+             JourneyLogWriter journeys = journeyFile == null ? null : new JourneyLogWriter(journeyFile, streams.getSeed())) {
+            this.journeyLog = journeys;
+            List<ProbeListener> logs = new ArrayList<>();
+            for (ProbeListener log : new ProbeListener[]{csvLog, runLog}) {
+                if (log != null) {
+                    probes.subscribe(currentTime, SECONDS_PER_HOUR, CSV_PROBES, log);
+                    logs.add(log);
+                }
+            }
+            run(totalSimulationDuration, logs);
+        } finally {
+            this.journeyLog = null;
+        }
+        for (File logFile : new File[]{csvFile, runFile, journeyFile}) {
+            if (logFile != null) {
+                log("Printed output to " + logFile);
+            }
+        }
+        log("\nSummary (" + totalSimulationDuration.toString().substring(2) + " duration):\n" + eventsProcessed + " events processed\n"
+                + patientsTreated + " patients treated\n" + patientsRejected + " patients rejected\n"
+                + patientsLeftWithoutBeingSeen + " patients left without being seen\n"
+                + patientsDeteriorated + " patients deteriorated while waiting");
+        RunningStatistics waits = patientStatistics.get(PatientStatistics.Metric.WAIT);
+        log(String.format("Wait time: mean %.1f mins, 90th percentile %.1f mins, max %.1f mins",
+                waits.getMean(), waits.getQuantile(0.9), waits.getMax()));
+    }
+
+    /**
+     * Runs the scheduling cycles of the simulation.
+     * @param totalSimulationDuration the duration of the simulation
+     * @param logs the hourly logs, flushed at the end of every cycle
+     */
+    private void run(Duration totalSimulationDuration, List<ProbeListener> logs) {
         // Define the cycle for scheduling and simulation
         Duration schedulingPeriod = Duration.ofDays(28);
-        Duration totalTimeSimulated = Duration.ZERO;
+        long schedulingPeriodSecs = schedulingPeriod.toSeconds();
+        this.simulationEnd = totalSimulationDuration.toSeconds();
+        long totalTimeSimulated = 0;
         int cycleNumber = 1;
 
         // NEW: Variables for metrics tracking
@@ -132,16 +306,24 @@ public class DES {
         double totalWaitTimeAtCycleStart = 0.0;
         int admissionsAtCycleStart = 0;
 
-        // Initialize data collection for the total simulation duration
-        int totalHours = (int) totalSimulationDuration.toHours();
-        this.data = new int[10][totalHours];
-        this.hourlyArrivals = 0;
+        // Record the hourly probes for the GUI
+        if (recordHourlyData) {
+            this.hourlyData = new ProbeRecorder(HOURLY_PROBES);
+            probes.subscribe(currentTime, SECONDS_PER_HOUR, HOURLY_PROBES, hourlyData);
+        }
+
+        log("Starting simulation for a total of " + totalSimulationDuration.toDays() + " days, in " + schedulingPeriod.toDays() + "-day cycles (seed " + streams.getSeed() + ").");
 
-        System.out.println("Starting simulation for a total of " + totalSimulationDuration.toDays() + " days, in " + schedulingPeriod.toDays() + "-day cycles.");
+        // Arrivals are generated on demand: each arrival schedules the next one when it fires
+        int tabulatedHours = (int) ((simulationEnd + SECONDS_PER_HOUR - 1) / SECONDS_PER_HOUR);
+        this.arrivalIntensities = runConfig.arrivalTable(arrivalFunctionName, config.getInterarrivalTimeMins(), tabulatedHours);
+        this.arrivalIntensityPosition = arrivalIntensities.cumulativeIntensity(currentTime);
+        scheduleNextArrival();
 
         // Main simulation loop
-        while (totalTimeSimulated.compareTo(totalSimulationDuration) < 0) {
-            System.out.println("\n--- Starting Simulation Cycle " + cycleNumber + " (Time: " + totalTimeSimulated.toDays() + " to " + (totalTimeSimulated.toDays() + schedulingPeriod.toDays()) + " days) ---");
+        while (totalTimeSimulated < simulationEnd) {
+            long cycleStartDay = Duration.ofSeconds(totalTimeSimulated).toDays();
+            log("\n--- Starting Simulation Cycle " + cycleNumber + " (Time: " + cycleStartDay + " to " + (cycleStartDay + schedulingPeriod.toDays()) + " days) ---");
 
             // Store metric totals at the beginning of the cycle
             patientsTreatedAtCycleStart = this.patientsTreated;
@@ -150,9 +332,10 @@ public class DES {
             admissionsAtCycleStart = this.totalERAdmissions;
 
             // MODIFIED: Create OptimizationInput with optional feedback
+            boolean feedback = config.isUseHistoricalAdjustment() && lastCycleMetrics != null;
             OptimizationInput input;
-            if (config.isUseHistoricalAdjustment() && lastCycleMetrics != null) {
-                System.out.println("Using historical metrics to adjust demand for cycle " + cycleNumber);
+            if (feedback) {
+                log("Using historical metrics to adjust demand for cycle " + cycleNumber);
                 input = SchedulingInputFactory.createInput(this.config, schedulingPeriod, lastCycleMetrics);
             } else {
                 input = SchedulingInputFactory.createInput(this.config, schedulingPeriod);
@@ -161,50 +344,39 @@ public class DES {
 
             // Check the config to decide which scheduler to use.
             if (config.isUseRandomSchedule()) {
-                System.out.println("Generating schedule using BaselineScheduler...");
-                BaselineScheduler baselineScheduler = new BaselineScheduler();
-                OptimizedScheduleOutput baselineSchedule = baselineScheduler.generateBaselineSchedule(input);
+                log("Generating schedule using BaselineScheduler...");
+                OptimizedScheduleOutput baselineSchedule = scheduler.generateBaselineSchedule(input);
 
                 // You can now access the generated schedule. For now, we'll just log the result.
                 if(baselineSchedule != null && baselineSchedule.isFeasible()){
-                    System.out.println("Baseline schedule generated successfully with total cost: " + baselineSchedule.getTotalCost());
+                    log("Baseline schedule generated successfully with total cost: " + baselineSchedule.getTotalCost());
                 } else {
-                    System.out.println("Baseline scheduler failed to generate a schedule.");
+                    log("Baseline scheduler failed to generate a schedule.");
                 }
 
             } else {
-                System.out.println("Generating optimal staff schedule using optimizers...");
-                // Call the optimizers as before, but using the new getSchedule method.
-                nurseSchedule = getSchedule("nurse", input);
-                physicianSchedule = getSchedule("physician", input);
-                residentSchedule = getSchedule("resident", input);
+                log("Generating optimal staff schedule using optimizers...");
+                // Without performance feedback the input depends only on the configuration, so its schedules are
+                // solved once per configuration and shared by all its runs and cycles
+                OptimizedScheduleOutput[] schedules = feedback ? solveSchedules(input)
+                        : runConfig.schedules(schedulingPeriod, period -> solveSchedules(input));
+                nurseSchedule = schedules[0];
+                physicianSchedule = schedules[1];
+                residentSchedule = schedules[2];
             }
 
 
-            // 2. GENERATE PATIENT ARRIVALS for the current cycle
-            Duration cycleEndTime = totalTimeSimulated.plus(schedulingPeriod);
-            System.out.println("Generating patient arrivals for the current cycle (until " + cycleEndTime + ")...");
-            generateArrivalsForCycle(totalTimeSimulated, cycleEndTime);
-            System.out.println(eventList.size() + " arrival events generated for this cycle.");
-
-            // 3. RUN SIMULATION for the current cycle
-            System.out.println("Processing events for cycle " + cycleNumber + "...");
-            int currentHour = (int) deltaTime.toHours();
-
-            // Process events only within the current cycle's time window
-            while (!eventList.isEmpty() && eventList.peek().getTime().compareTo(cycleEndTime) < 0) {
-                nextEvent(totalSimulationDuration); // The event itself sets the new deltaTime
-
-                // Record hourly data as before
-                int newHour = (int) deltaTime.toHours();
-                if (newHour > currentHour && newHour < totalHours) {
-                    recordHourlyData(newHour);
-                    for(int h = currentHour + 1; h < newHour; h++) {
-                        // Fill in any hours with no events
-                        recordHourlyData(h);
-                    }
-                    currentHour = newHour;
-                }
+            // 2. RUN SIMULATION for the current cycle. Treatments still in progress from the previous cycle carry over.
+            long cycleEndTime = totalTimeSimulated + schedulingPeriodSecs;
+            log("Processing events for cycle " + cycleNumber + " (until " + Duration.ofSeconds(cycleEndTime) + ", " + eventList.size() + " events pending)...");
+
+            // Process events only within the current cycle's time window, one timestamp at a time
+            while (!eventList.isEmpty() && eventList.peek().getTime() < cycleEndTime) {
+                nextBatch(); // The batch sets the new currentTime and takes any probe samples due before it
+            }
+            probes.advanceTo(Math.min(cycleEndTime, simulationEnd));
+            for (ProbeListener log : logs) {
+                log.flush(); // completed cycles survive a crash in a later one
             }
 
             // NEW: Calculate and store metrics for the completed cycle
@@ -226,189 +398,287 @@ public class DES {
 
             lastCycleMetrics = new PerformanceMetrics(rejectionRate, avgWaitingTimeMins);
 
-            System.out.println("--- End of Simulation Cycle " + (cycleNumber) + " ---");
-            System.out.printf("--- Cycle %d Metrics ---%nRejection Rate: %.2f%%%nAvg. Wait Time: %.2f mins%n",
-                    cycleNumber, rejectionRate * 100, avgWaitingTimeMins);
+            log("--- End of Simulation Cycle " + (cycleNumber) + " ---");
+            log(String.format("--- Cycle %d Metrics ---%nRejection Rate: %.2f%%%nAvg. Wait Time: %.2f mins",
+                    cycleNumber, rejectionRate * 100, avgWaitingTimeMins));
 
 
             // Update total simulated time
-            totalTimeSimulated = totalTimeSimulated.plus(schedulingPeriod);
+            totalTimeSimulated += schedulingPeriodSecs;
             cycleNumber++;
         }
-
-        // Final actions after all cycles are complete
-        writeToCSV();
-        System.out.println("\nSummary (" + totalSimulationDuration.toString().substring(2) + " duration):\n" + eventsProcessed + " events processed\n"
-                + patientsTreated + " patients treated\n" + patientsRejected + " patients rejected");
     }
-    // In src/main/java/simulation/DES.java
-
     /**
-     * Clears the event list and generates new arrival events for a specific time period.
-     * @param cycleStartTime The start time for the event generation window.
-     * @param cycleEndTime The end time for the event generation window.
+     * Schedules the next arrival. Arrivals follow a non-homogeneous Poisson process whose mean interarrival time is
+     * the interarrivalTime variable scaled by the arrival function. The next arrival is found exactly by inverting the
+     * tabulated cumulative intensity, then placed on the simulation's minute grid. Only the next arrival is ever held
+     * in the event list; the one after it is sampled when it fires.
      */
-    private void generateArrivalsForCycle(Duration cycleStartTime, Duration cycleEndTime) {
-        eventList.clear();
-        Duration currentTime = cycleStartTime;
-
-        while (currentTime.compareTo(cycleEndTime) < 0) {
-            // Calculate the arrival rate for the current hour
-            t.setArgumentValue(currentTime.toHours());
-            double currentInterarrivalTime = interarrivalTimeMins / arrivalExpression.calculate();
-
-            // Generate time to next arrival
-            ExponentialDistribution distribution = new ExponentialDistribution(currentInterarrivalTime);
-            Duration timeToNextArrival = Duration.ofMinutes((long) Math.max(1, distribution.sample())); // Ensure at least 1 minute passes
-
-            Duration newEventTime = currentTime.plus(timeToNextArrival);
-
-            // Add the event only if it falls within the current cycle
-            if (newEventTime.compareTo(cycleEndTime) < 0) {
-                Patient p = generateRandomPatient(newEventTime); // Pass arrival time to patient
-                eventList.add(new Event(newEventTime, "arrival", p));
-            }
-            currentTime = newEventTime;
+    private void scheduleNextArrival() {
+        arrivalIntensityPosition += unitExponential.sample(arrivalRandom);
+        double arrivalTime = arrivalIntensities.timeOf(arrivalIntensityPosition);
+        if (arrivalTime < simulationEnd) {
+            long newEventTime = SECONDS_PER_MINUTE * (long) (arrivalTime / SECONDS_PER_MINUTE);
+            Patient p = patientGenerator.generate(newEventTime); // Pass arrival time to patient
+            eventList.add(new Event(newEventTime, Event.Type.ARRIVAL, p));
         }
-        // Sort events by time to ensure correct processing order
-        eventList.sort(null);
     }
-    /**
-     * Generates an arrival event prior to the start of the simulation. Interarrival times follow a Poisson process,
-     * drawing arrivals from an exponential distribution with the interarrivalTime variable as parameter.
-     */
-//    private void createArrival(){
-//        Duration lastEventTime;
-//        if (eventList.isEmpty()){
-//            lastEventTime = Duration.ZERO;
-//        } else {
-//            lastEventTime = eventList.getLast().getTime();
-//        }
-//        t.setArgumentValue(+(int)Math.floor(lastEventTime.toHours()));
-//        ExponentialDistribution distribution = new ExponentialDistribution(interarrivalTimeMins/arrivalExpression.calculate());
-//        Patient p = generateRandomPatient();
-//        eventList.add(new Event(Duration.ofMinutes((long)distribution.sample()).plus(lastEventTime), "arrival", p));
-//    }
 
     /**
-     * Ticks over to the next event in the simulation and calls the relevant function to process it.
-     * @param simDuration the total duration of the simulation
+     * Ticks over to the next event time and processes every event scheduled for it as one batch: releases first,
+     * then patients who run out of patience, then arrivals, and finally a single dispatch pass over the waiting room.
+     * Events scheduled for the same time while the batch runs are processed in the next batch.
      */
-    private void nextEvent(Duration simDuration){
-        eventList.sort(null);
-        Event e = eventList.removeFirst();
-        if(e.getTime().compareTo(simDuration)<0) {
+    private void nextBatch(){
+        long time = eventList.peek().getTime();
+        if(time >= simulationEnd) {
+            // Past the end of the simulation: discard
+            while (!eventList.isEmpty() && eventList.peek().getTime() == time) {
+                eventList.poll();
+            }
+            return;
+        }
+        probes.advanceTo(time);
+        currentTime = time;
+        while (!eventList.isEmpty() && eventList.peek().getTime() == time) {
+            Event e = eventList.poll();
             eventsProcessed++;
-            deltaTime = e.getTime();
             switch (e.getType()) {
-                case "arrival":
-                    arrival(e.getPatient());
-                    break;
-                case "release":
-                    release(e.getPatient());
-                    break;
+                case ARRIVAL -> batchArrivals.add(e.getPatient());
+                case RELEASE -> batchReleases.add(e.getPatient());
+                case RENEGE -> batchReneges.add(e.getPatient());
+                case DETERIORATE -> batchDeteriorations.add(e.getPatient());
             }
         }
+        for (Patient p : batchReleases) {
+            release(p);
+        }
+        for (Patient p : batchReneges) {
+            renege(p);
+        }
+        for (Patient p : batchDeteriorations) {
+            deteriorate(p);
+        }
+        for (Patient p : batchArrivals) {
+            arrival(p);
+        }
+        dispatch();
+        for (Patient p : batchArrivals) {
+            scheduleWaitingEvents(p);
+        }
+        batchReleases.clear();
+        batchReneges.clear();
+        batchDeteriorations.clear();
+        batchArrivals.clear();
     }
 
     /**
-     * Handles a single arrival event for a given patient.
+     * Handles a single arrival event for a given patient: the patient is admitted to the waiting room, or rejected
+     * if it is full. Treatment starts in the batch's dispatch pass.
      * @param p the patient that arrives
      */
     private void arrival(Patient p){
+        scheduleNextArrival();
         totalArrivals++;
-        p.setArrivalTime(deltaTime);
-        hourlyArrivals++;
+        p.setArrivalTime(currentTime);
         if (DETAILED_LOGGING) {
-            System.out.println("EVENT " + eventsProcessed + " | TIME " + deltaTime.toString().substring(2) + " | Patient " + p.getName() + " arrives needing " + p.getTriageLevel().getDescription().toLowerCase() + " care.");
+            System.out.println("EVENT " + eventsProcessed + " | TIME " + formatTime(currentTime) + " | Patient " + p.getName() + " arrives needing " + p.getTriageLevel().getDescription().toLowerCase() + " care.");
         }
         if(er.addPatient(p)) {
             totalERAdmissions++;
-            if (canTreatPatient(p)) {
-                treat(er.getNextPatient());
-            } else {
-                if (DETAILED_LOGGING) {
-                    System.out.println(new String(new char[("EVENT " + eventsProcessed + " | TIME " + deltaTime.toString().substring(2)).length()]).replace('\0', ' ') + " | Patient " + p.getName() + " entered the waiting room.");
-                }
-            }
         } else {
             patientsRejected++;
+            if (journeyLog != null) {
+                journeyLog.record(p, JourneyLog.Outcome.REJECTED, -1, currentTime);
+            }
             if (DETAILED_LOGGING) {
-                System.out.println(new String(new char[("EVENT " + eventsProcessed + " | TIME " + deltaTime.toString().substring(2)).length()]).replace('\0', ' ') + " | Patient " + p.getName() + " was rejected.");
+                System.out.println(new String(new char[("EVENT " + eventsProcessed + " | TIME " + formatTime(currentTime)).length()]).replace('\0', ' ') + " | Patient " + p.getName() + " was rejected.");
             }
         }
     }
 
     /**
-     * Checks if it's possible to treat a given patient based on their triage level and the ER's availability.
-     * @param p the patient to check
-     * @return true if there are enough resources to treat the patient, false otherwise
+     * Schedules the reneging and deterioration events of a patient who arrived in the current batch and is still
+     * waiting after the dispatch pass.
+     * @param p the patient that arrived
+     */
+    private void scheduleWaitingEvents(Patient p){
+        // Drawn for every arrival, so each patient gets the same draws in runs with the same seed
+        double patience = unitExponential.sample(patienceRandom);
+        double deterioration = unitExponential.sample(deteriorationRandom);
+        if (p.isWaiting()) {
+            if (DETAILED_LOGGING) {
+                System.out.println(new String(new char[("EVENT " + eventsProcessed + " | TIME " + formatTime(currentTime)).length()]).replace('\0', ' ') + " | Patient " + p.getName() + " entered the waiting room.");
+            }
+            double meanPatience = meanPatienceSecs[p.getTriageLevel().ordinal()];
+            if (meanPatience > 0) {
+                long renegeTime = currentTime + (long) (patience * meanPatience);
+                p.setRenegeEvent(eventList.add(new Event(renegeTime, Event.Type.RENEGE, p)));
+            }
+            p.setDeteriorationDraw(deterioration);
+            scheduleDeterioration(p);
+        }
+    }
+
+    /**
+     * Schedules a waiting patient's deterioration to the next triage level, if patients at their level deteriorate.
+     * The patient's deterioration draw is scaled by the mean deterioration time of their level.
+     * @param p the waiting patient
+     */
+    private void scheduleDeterioration(Patient p){
+        double meanDeterioration = meanDeteriorationSecs[p.getTriageLevel().ordinal()];
+        if (meanDeterioration > 0 && p.getTriageLevel() != Patient.TriageLevel.RED) {
+            long deteriorationTime = currentTime + (long) (p.getDeteriorationDraw() * meanDeterioration);
+            p.setDeteriorationEvent(eventList.add(new Event(deteriorationTime, Event.Type.DETERIORATE, p)));
+        }
+    }
+
+    /**
+     * Fills free treatment rooms with waiting patients chosen by the dispatcher, until no room is free or no
+     * waiting patient can be treated under the dispatch policy.
      */
-    private boolean canTreatPatient(Patient p){
-        if(er.hasTreatmentRoomAvailable()){
-            String triageLevel = p.getTriageLevel().name();
-            double reqNurses = config.getTriageNurseRequirements().get(triageLevel);
-            double reqPhysicians = config.getTriagePhysicianRequirements().get(triageLevel);
-            double reqRPs = config.getTriageRPRequirements().get(triageLevel);
-            //currently treats nurse roles equally
-            Map<String,Double> availableStaff = er.getAvailableStaff();
-            if(((reqNurses<=availableStaff.get("Nurses"))
-                    &&(reqPhysicians<=availableStaff.get("Physicians"))
-                    &&(reqRPs<=availableStaff.get("Residents")))
-                    ||useUnlimitedStaff)
-            {return true;}
-        }
-        return false;
+    private void dispatch(){
+        Patient p;
+        while((p = dispatcher.next(currentTime)) != null){
+            treat(p);
+        }
     }
 
     /**
-     * Simulates treating a patient. Assumes that canTreatPatient has already been evaluated as true before call. This
+     * Simulates treating a patient. Assumes that the dispatcher has chosen the patient, so a room and staff are free. This
      * creates a "release" event for the end of the treatment duration.
      * @param p the patient to treat
      */
     private void treat(Patient p){
-        totalWaitTime+=deltaTime.minus(p.getArrivalTime()).toSeconds();
+        totalWaitTime+=currentTime-p.getArrivalTime();
+        waitTimeMins.record((double) (currentTime - p.getArrivalTime()) / SECONDS_PER_MINUTE);
+        patientStatistics.recordTreatmentStart(p, currentTime);
         avgWaitTime=totalWaitTime/totalERAdmissions;
         if(DETAILED_LOGGING){
-            System.out.println(new String(new char[("EVENT "+eventsProcessed+" | TIME "+deltaTime.toString().substring(2)).length()]).replace('\0',' ')+" | Patient "+p.getName()+" begins treatment.");
+            System.out.println(new String(new char[("EVENT "+eventsProcessed+" | TIME "+formatTime(currentTime)).length()]).replace('\0',' ')+" | Patient "+p.getName()+" begins treatment.");
         }
+        cancelWaitingEvents(p);
         if(!useUnlimitedStaff) {
-            er.occupyStaff("Nurses", config.getTriageNurseRequirements().get(p.getTriageLevel().name()));
-            er.occupyStaff("Physicians", config.getTriagePhysicianRequirements().get(p.getTriageLevel().name()));
-            er.occupyStaff("Residents", config.getTriageRPRequirements().get(p.getTriageLevel().name()));
+            er.occupyStaff(p.getTriageLevel());
         }
         er.occupyTreatmentRoom();
         treatingPatients.add(p);
-        eventList.add(new Event(deltaTime.plus(p.getTreatmentTime()),"release", p));
+        eventList.add(new Event(currentTime+p.getTreatmentTime(), Event.Type.RELEASE, p));
     }
 
     /**
-     * Discharges a patient from the ER. If there are other patients that can be treated, sends the next highest
-     * priority patient to treatment
+     * Discharges a patient from the ER, freeing their room and staff for the batch's dispatch pass.
      * @param p the patient being discharged
      */
     private void release(Patient p){
         patientsTreated++;
-        totalTreatmentTime+=p.getTreatmentTime().toSeconds();
+        totalTreatmentTime+=p.getTreatmentTime();
         avgTreatmentTime=totalTreatmentTime/patientsTreated;
         if(DETAILED_LOGGING){
-            System.out.println("EVENT "+eventsProcessed+" | TIME "+deltaTime.toString().substring(2)+" | Patient "+p.getName()+" is discharged from the ER.");
+            System.out.println("EVENT "+eventsProcessed+" | TIME "+formatTime(currentTime)+" | Patient "+p.getName()+" is discharged from the ER.");
         }
         if(!useUnlimitedStaff) {
-            er.freeStaff("Nurses", config.getTriageNurseRequirements().get(p.getTriageLevel().name()));
-            er.freeStaff("Physicians", config.getTriagePhysicianRequirements().get(p.getTriageLevel().name()));
-            er.freeStaff("Residents", config.getTriageRPRequirements().get(p.getTriageLevel().name()));
+            er.freeStaff(p.getTriageLevel());
         }
         er.freeTreatmentRoom();
         treatingPatients.remove(p);
-        treatedPatients.add(p);
-        if(!er.getWaitingPatients().isEmpty()){
-            if(canTreatPatient(er.getWaitingPatients().peek())) {
-                treat(er.getNextPatient());
+        p.setDischargeTime(currentTime);
+        patientStatistics.recordDischarge(p, currentTime);
+        patientSample.add(p);
+        if (journeyLog != null) {
+            journeyLog.record(p, JourneyLog.Outcome.TREATED, currentTime - p.getTreatmentTime(), currentTime);
+        }
+    }
+
+    /**
+     * Handles a waiting patient running out of patience: they leave the waiting room without being seen.
+     * @param p the patient that leaves
+     */
+    private void renege(Patient p){
+        p.setRenegeEvent(null);
+        if(er.getWaitingPatients().remove(p)){
+            cancelWaitingEvents(p);
+            patientsLeftWithoutBeingSeen++;
+            leftWithoutBeingSeen[p.getTriageLevel().ordinal()]++;
+            if (journeyLog != null) {
+                journeyLog.record(p, JourneyLog.Outcome.LEFT_WITHOUT_BEING_SEEN, -1, currentTime);
+            }
+            if(DETAILED_LOGGING){
+                System.out.println("EVENT "+eventsProcessed+" | TIME "+formatTime(currentTime)+" | Patient "+p.getName()+" left without being seen.");
             }
         }
     }
 
+    /**
+     * Handles a waiting patient's condition worsening: they are promoted one triage level, keeping their place by
+     * arrival time, and may deteriorate again at the new level. The draw timing the next deterioration is derived
+     * from the patient's previous one rather than taken from the deterioration stream, so every patient uses exactly
+     * one draw of each stream however often they deteriorate, and runs with the same seed stay aligned. The patient
+     * keeps the treatment time sampled at arrival for their original level; resampling it would take extra draws from
+     * the treatment time stream and shift the treatment times of every later patient.
+     * @param p the patient that deteriorates
+     */
+    private void deteriorate(Patient p){
+        p.setDeteriorationEvent(null);
+        Patient.TriageLevel worse = Patient.TriageLevel.values()[p.getTriageLevel().ordinal() - 1];
+        if(er.getWaitingPatients().promote(p, worse)){
+            patientsDeteriorated++;
+            if(DETAILED_LOGGING){
+                System.out.println("EVENT "+eventsProcessed+" | TIME "+formatTime(currentTime)+" | Patient "+p.getName()+" deteriorates to "+worse+".");
+            }
+            if(p.getRenegeEvent()!=null && meanPatienceSecs[worse.ordinal()]==0){
+                // Patients at the new level do not leave without being seen
+                eventList.cancel(p.getRenegeEvent());
+                p.setRenegeEvent(null);
+            }
+            p.setDeteriorationDraw(nextDeteriorationDraw(p.getDeteriorationDraw(), worse));
+            scheduleDeterioration(p);
+        }
+    }
+
+    /**
+     * Derives the draw timing a patient's deterioration at their new level from the draw that timed the last one.
+     * @param draw the unit-mean exponential draw of the patient's last deterioration
+     * @param level the triage level the patient deteriorated to
+     * @return an exponential draw with unit mean, as good as independent of the given one
+     */
+    private static double nextDeteriorationDraw(double draw, Patient.TriageLevel level){
+        long bits = RandomStreams.mix(Double.doubleToRawLongBits(draw) + level.ordinal() + 1);
+        return -Math.log(((bits >>> 11) + 1) * 0x1.0p-53); // uniform on (0, 1], so the draw is finite
+    }
+
+    /**
+     * Cancels the pending reneging and deterioration events of a patient leaving the waiting room.
+     * @param p the patient
+     */
+    private void cancelWaitingEvents(Patient p){
+        if(p.getRenegeEvent()!=null){
+            eventList.cancel(p.getRenegeEvent());
+            p.setRenegeEvent(null);
+        }
+        if(p.getDeteriorationEvent()!=null){
+            eventList.cancel(p.getDeteriorationEvent());
+            p.setDeteriorationEvent(null);
+        }
+    }
+
+    /**
+     * Formats a simulation time for detailed logging, e.g. "26H13M".
+     * @param seconds the time in seconds since the start of the simulation
+     * @return the formatted time
+     */
+    private static String formatTime(long seconds){
+        return Duration.ofSeconds(seconds).toString().substring(2);
+    }
+
+    /**
+     * Returns the simulation clock as a {@link Duration}, for callers outside the event loop.
+     * @return the time elapsed since the start of the simulation
+     */
+    public Duration getElapsedTime(){
+        return Duration.ofSeconds(currentTime);
+    }
+
     /**
      * Retrieves the optimized schedule for a supercategory of staff roles (nurse, attending, or resident) using the LP
      * system with the parameters given in config.json.
@@ -430,6 +700,19 @@ public class DES {
         return null;
     }
 
+    /**
+     * Solves the nurse, physician and resident schedules of a scheduling cycle.
+     * @param input the staff and demands of the cycle
+     * @return the three schedules, in that order
+     */
+    private OptimizedScheduleOutput[] solveSchedules(OptimizationInput input) {
+        return new OptimizedScheduleOutput[]{
+                getSchedule("nurse", input),
+                getSchedule("physician", input),
+                getSchedule("resident", input)
+        };
+    }
+
     /**
      * Creates a list of staff members based on the role counts described in config.json's staffCounts variable.
      * @return the full list of all staff members.
@@ -518,144 +801,83 @@ public class DES {
     }
 
     /**
-     * Records data from the last hour for GUI display.
-     * @param hour the hour (as an integer count from the beginning of the simulation) to record data for
+     * Registers the simulation's own probes: arrivals during the interval ("arrivals") and in total
+     * ("arrivals.total"), patients in treatment ("treating"), the running treatment and wait time totals and averages
+     * ("treatmentTime.total", ...), counters of treated, rejected, deteriorated and left-without-being-seen patients,
+     * the latter also per triage level ("leftWithoutBeingSeen.RED", ...), and the distribution of wait times in
+     * minutes ("waitTimeMins.p90", ...).
+     * @param probes the simulation's probes
+     * @return the wait time distribution, fed as patients start treatment
      */
-    private void recordHourlyData(int hour) {
-        if (hour < data[0].length) {
-            data[0][hour] = hour;
-            // ts not poisson so 0 lmk if it breaks smth - emre
-            data[1][hour] = hourlyArrivals;
-            data[2][hour] = er.getWaitingPatients().size();
-            data[3][hour] = treatingPatients.size();
-            data[4][hour] = er.getTreatmentRooms() - er.getOccupiedTreatmentRooms();
-            data[5][hour] = (int)totalTreatmentTime;
-            data[6][hour] = (int)avgTreatmentTime;
-            data[7][hour] = (int)totalWaitTime;
-            data[8][hour] = (int)avgWaitTime;
-            data[9][hour] = totalArrivals;
-        }
-        logToCSV(hour);
-        hourlyArrivals = 0;
-    }
-    
-    // Configuration methods for web interface
-    public void setHyperparameters(Map<String, Object> hyperparameters) {
-        this.hyperparameters = hyperparameters;
-        
-        if (hyperparameters.containsKey("interarrivalTime")) {
-            this.interarrivalTimeMins = ((Number) hyperparameters.get("interarrivalTime")).doubleValue();
+    private ProbeDistribution registerProbes(Probes probes) {
+        probes.counter("arrivals", () -> totalArrivals);
+        probes.gauge("arrivals.total", () -> totalArrivals);
+        probes.gauge("treating", () -> treatingPatients.size());
+        probes.gauge("treatmentTime.total", () -> totalTreatmentTime);
+        probes.gauge("treatmentTime.average", () -> avgTreatmentTime);
+        probes.gauge("waitTime.total", () -> totalWaitTime);
+        probes.gauge("waitTime.average", () -> avgWaitTime);
+        probes.counter("treated", () -> patientsTreated);
+        probes.counter("rejected", () -> patientsRejected);
+        probes.counter("deteriorated", () -> patientsDeteriorated);
+        probes.counter("leftWithoutBeingSeen", () -> patientsLeftWithoutBeingSeen);
+        for (Patient.TriageLevel level : Patient.TriageLevel.values()) {
+            probes.counter("leftWithoutBeingSeen." + level.name(), () -> leftWithoutBeingSeen[level.ordinal()]);
         }
+        return probes.distribution("waitTimeMins");
     }
-    
-    public void setFocusTriageLevel(Patient.TriageLevel triageLevel) {
-        this.focusTriageLevel = triageLevel;
-    }
-    
-    public void setScenarioType(String arrivalFunctionName) {
-        this.scenarioType = arrivalFunctionName;
-
-        // Update the arrival expression with the new function
-        try {
-            Map<String, String> arrivalFunctions = config.getPatientArrivalFunctions();
-
-            if (arrivalFunctions.containsKey(arrivalFunctionName)) {
-                // Create a new expression with the selected arrival function
-                String exprString = arrivalFunctions.get(arrivalFunctionName);
-                this.arrivalExpression.setExpressionString(exprString);
-                System.out.println("Updated arrival function to '" + arrivalFunctionName + "': f(t) = " + exprString);
-            } else {
-                System.out.println("Warning: Arrival function '" + arrivalFunctionName + "' not found in config. Using default.");
-            }
-        } catch (Exception e) {
-            System.out.println("Error updating arrival function: " + e.getMessage());
+
+    private static List<String> hourlyProbes() {
+        List<String> names = new ArrayList<>(CSV_PROBES);
+        names.add("rooms.utilization");
+        for (Patient.TriageLevel level : Patient.TriageLevel.values()) {
+            names.add("waiting." + level.name());
+        }
+        for (Patient.TriageLevel level : Patient.TriageLevel.values()) {
+            names.add("leftWithoutBeingSeen." + level.name());
         }
+        return List.copyOf(names);
     }
     
-    public void setTriageClassifier(String classifierType) {
-        switch (classifierType.toUpperCase()) {
-            case "CTAS" -> this.triageClassifier = new CTAS();
-            case "ESI" -> this.triageClassifier = new ESI();
-            case "MTS" -> this.triageClassifier = new MTS();
-            default -> this.triageClassifier = new CTAS(); // Default fallback
+    private void log(String message) {
+        if (!quiet) {
+            System.out.println(message);
         }
     }
 
+    // Configuration methods for web interface
     /**
-     * Generates a random patient according to a set of probabilities regarding diagnoses with varying triage levels.
-     * @return a random Patient object
+     * Keeps the hourly probes in memory, see {@link #getHourlyData()}. Off by default, so that a run's memory does
+     * not grow with its duration.
+     * @param recordHourlyData whether to record the hourly probes
      */
-    private Patient generateRandomPatient(Duration arrivalTime) {
-        UUID id = UUID.randomUUID();
-        String name = "Patient" + Math.abs(id.hashCode() % 10000);
-        int age = 5 + random.nextInt(95);
-        int diagnosis = generateDiagnosis();
-        Patient.TriageLevel triageLevel = triageClassifier.classify(diagnosis);
-
-        // 5% chance to escalate triage priority
-        if (random.nextDouble() < 0.05) {
-            switch (triageLevel) {
-                case BLUE -> triageLevel = Patient.TriageLevel.GREEN;
-                case GREEN -> triageLevel = Patient.TriageLevel.YELLOW;
-                case YELLOW -> triageLevel = Patient.TriageLevel.ORANGE;
-                case ORANGE -> triageLevel = Patient.TriageLevel.RED;
-                default -> {
-                    // RED remains RED
-                }
-            }
-        }
-        //Treatment times follow a normal distribution, shape varies based on triage level.
-        NormalDistribution treatmentTimeDist = new NormalDistribution(avgTreatmentTimes.get(triageLevel),0.25*avgTreatmentTimes.get(triageLevel));
-        Duration treatmentTime = Duration.ofMinutes((long)treatmentTimeDist.sample());
-        return new Patient(id, name, age, triageLevel, arrivalTime, treatmentTime);
+    public void setRecordHourlyData(boolean recordHourlyData) {
+        this.recordHourlyData = recordHourlyData;
     }
 
     /**
-     * Generates a condition for a patient to present with, which can be later turned into a triage level.
-     * @return
+     * Suppresses the progress output of {@link #start(Duration)}, for running many simulations at once.
+     * @param quiet whether to suppress progress output
      */
-    private int generateDiagnosis() {
-        double[] diagnosisProbs = {
-                3.72908417e-02, 3.45021445e-02, 6.44438692e-04, 1.42655116e-01,
-                4.82845207e-03, 2.06028792e-01, 4.42272662e-02, 1.19613046e-02,
-                6.28956682e-06, 9.97375315e-02, 2.83615920e-02, 7.33431225e-02,
-                1.14778789e-01, 4.28604950e-02, 4.97795023e-02, 4.95869448e-02,
-                5.94073777e-02
-        };
-        double r = random.nextDouble();
-        double cumulative = 0.0;
-        for (int i = 0; i < diagnosisProbs.length; i++) {
-            cumulative += diagnosisProbs[i];
-            if (r < cumulative) {
-                return i + 1;
-            }
-        }
-        // Fallback in case cumulative never exceeds r
-        return diagnosisProbs.length;
+    public void setQuiet(boolean quiet) {
+        this.quiet = quiet;
     }
 
-    /**
-     * Adds the current contents of the data array to the output string to be written to CSV later
-     * @param hour the current hour of the simulation
-     */
-    private void logToCSV(int hour){
-        for (int[] datum:data
-             ) {
-            stringOutputData+=Integer.toString(datum[hour])+",";
-        }
-        stringOutputData=stringOutputData.substring(0,stringOutputData.length()-1)+"\n";
+    public void setDispatchPolicy(DispatchPolicy dispatchPolicy) {
+        dispatcher.setPolicy(dispatchPolicy);
     }
 
-    /**
-     * Writes the contents of the output string to a file.
-     * @throws FileNotFoundException if the
-     */
-    private void writeToCSV() throws FileNotFoundException {
-        String filename = "log_"+LocalDateTime.now().format(DateTimeFormatter.ofPattern("ddMMHHmmss"))+".csv";
-        File output = new File(filename);
-        try (PrintWriter writer = new PrintWriter(output)) {
-            writer.println(stringOutputData);
+    public void setFocusTriageLevel(Patient.TriageLevel triageLevel) {
+        this.focusTriageLevel = triageLevel;
+    }
+    
+    public void setTriageClassifier(String classifierType) {
+        switch (classifierType.toUpperCase()) {
+            case "CTAS" -> this.triageClassifier = new CTAS();
+            case "ESI" -> this.triageClassifier = new ESI();
+            case "MTS" -> this.triageClassifier = new MTS();
+            default -> this.triageClassifier = new CTAS(); // Default fallback
         }
-        System.out.println("Printed output to "+filename);
+        patientGenerator.setTriageClassifier(triageClassifier);
     }
 }
@@ -0,0 +1,17 @@
+package simulation;
+
+/**
+ * How the DES chooses the next waiting patient to send to a free treatment room.
+ */
+public enum DispatchPolicy {
+    /**
+     * Only the highest-priority waiting patient may start treatment. If their staff requirements cannot be met,
+     * everyone behind them waits too.
+     */
+    STRICT_PRIORITY,
+    /**
+     * The highest-priority waiting patient whose staff requirements can be met starts treatment, so lower-acuity
+     * patients can use rooms and staff that a blocked higher-priority patient cannot.
+     */
+    BACKFILL
+}
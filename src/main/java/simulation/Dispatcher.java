@@ -0,0 +1,60 @@
+package simulation;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Chooses which waiting patients start treatment when rooms or staff free up.
+ * <p>
+ * Staff requirements depend only on the triage level, so the waiting room's per-level lanes double as an index by
+ * requirement vector. Intersecting the bitmask of non-empty lanes with the bitmask of levels the free staff can
+ * cover gives the feasible candidates, and its lowest set bit is the best-priority one. No waiting patient is
+ * scanned, whatever the queue length. With priority aging, the best candidate is the feasible lane head with the
+ * best effective priority, see {@link WaitingRoom#bestLevel(int, long)}.
+ * </p>
+ */
+@Getter
+@Setter
+public class Dispatcher {
+    private static final Patient.TriageLevel[] LEVELS = Patient.TriageLevel.values();
+
+    private final EmergencyRoom er;
+    private boolean unlimitedStaff;
+    private DispatchPolicy policy;
+
+    /**
+     * @param er             The emergency room whose waiting patients are dispatched.
+     * @param policy         The dispatch policy.
+     * @param unlimitedStaff Whether staff requirements are ignored.
+     */
+    public Dispatcher(EmergencyRoom er, DispatchPolicy policy, boolean unlimitedStaff) {
+        this.er = er;
+        this.policy = policy;
+        this.unlimitedStaff = unlimitedStaff;
+    }
+
+    /**
+     * Removes the next patient to treat from the waiting room. The caller is expected to start their treatment
+     * before asking for another patient.
+     *
+     * @param now The current time in seconds since the start of the simulation, for priority aging.
+     * @return The patient, or {@code null} if there is no free room or no waiting patient who can be treated under
+     *         the policy.
+     */
+    public Patient next(long now) {
+        if (!er.hasTreatmentRoomAvailable()) {
+            return null;
+        }
+        WaitingRoom waitingPatients = er.getWaitingPatients();
+        int waiting = waitingPatients.nonEmptyLevels();
+        if (waiting == 0) {
+            return null;
+        }
+        if (policy == DispatchPolicy.STRICT_PRIORITY) {
+            waiting = 1 << waitingPatients.bestLevel(waiting, now); // only the most urgent waiting level is eligible
+        }
+        int candidates = unlimitedStaff ? waiting : waiting & er.staffableLevels();
+        int level = waitingPatients.bestLevel(candidates, now);
+        return level < 0 ? null : waitingPatients.poll(LEVELS[level]);
+    }
+}
@@ -1,15 +1,14 @@
 package simulation;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import staff.Role;
 
 import java.io.IOException;
 import java.time.Duration;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.PriorityQueue;
 
 /**
  * Represents an emergency room that manages patient wait queues,
@@ -18,14 +17,25 @@ import java.util.PriorityQueue;
 @Getter
 @Setter
 public class EmergencyRoom {
-    private final String name;
-    private final int capacity;
-    private final PriorityQueue<Patient> waitingPatients;
-    private final int treatmentRooms;
+    @Setter(AccessLevel.NONE)
+    private String name;
+    @Setter(AccessLevel.NONE)
+    private int capacity;
+    private final WaitingRoom waitingPatients;
+    @Setter(AccessLevel.NONE)
+    private int treatmentRooms;
     private int occupiedTreatmentRooms;
     private Config config;
 
-    private Map<String,Double> availableStaff;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final int[] availableStaff; // indexed by StaffCategory ordinal
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final int[] totalStaff;     // indexed by StaffCategory ordinal
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int[][] staffRequirements; // [triage level ordinal][staff category ordinal]
 
     /**
      * Constructs a new EmergencyRoom with specified parameters.
@@ -35,35 +45,73 @@ public class EmergencyRoom {
      * @param treatmentRooms Number of available treatment rooms.
      */
     public EmergencyRoom(String name, int capacity, int treatmentRooms) throws IOException {
-        this.config = Config.getInstance();
+        this(name, capacity, treatmentRooms, RunConfig.defaults());
+    }
+
+    /**
+     * Constructs the emergency room described by a run's configuration: its name, capacity, treatment rooms, staff
+     * counts and triage requirements.
+     *
+     * @param runConfig The configuration of the run.
+     */
+    public EmergencyRoom(RunConfig runConfig) {
+        this(runConfig.getConfig().getERName(), runConfig.getConfig().getERCapacity(),
+                runConfig.getConfig().getERTreatmentRooms(), runConfig);
+    }
+
+    private EmergencyRoom(String name, int capacity, int treatmentRooms, RunConfig runConfig) {
+        this.config = runConfig.getConfig();
         this.name = name;
         this.capacity = capacity;
         this.treatmentRooms = treatmentRooms;
         this.occupiedTreatmentRooms = 0;
-        this.waitingPatients = new PriorityQueue<>(Comparator.comparingInt(p -> p.getTriageLevel().getPriority()));
-        this.availableStaff =new HashMap<String,Double>();
-        double nurses = 0.0;
-        double physicians = 0.0;
-        double residents = 0.0;
-        for (Map.Entry<String,Integer> entry:config.getStaffCounts().entrySet()
-             ) {
-            switch (entry.getKey()){
-                case "REGISTERED_NURSE":
-                case "LICENSED_PRACTICAL_NURSE":
-                case "CERTIFIED_NURSING_ASSISTANT":
-                    nurses+=(double)entry.getValue();
-                    break;
-                case "ATTENDING_PHYSICIAN":
-                    physicians+=(double)entry.getValue();
-                    break;
-                case "RESIDENT_PHYSICIAN":
-                    residents+=(double)entry.getValue();
-                    break;
-            }
+        this.waitingPatients = new WaitingRoom();
+        this.availableStaff = runConfig.getStaffCounts();
+        this.totalStaff = availableStaff.clone();
+        this.staffRequirements = runConfig.staffRequirements();
+    }
+
+    /**
+     * Empties the emergency room and turns it into the one described by another run's configuration, keeping its
+     * waiting room and the probes registered on it.
+     *
+     * @param runConfig The configuration of the run.
+     */
+    public void reset(RunConfig runConfig) {
+        this.config = runConfig.getConfig();
+        this.name = config.getERName();
+        this.capacity = config.getERCapacity();
+        this.treatmentRooms = config.getERTreatmentRooms();
+        this.occupiedTreatmentRooms = 0;
+        waitingPatients.clear();
+        int[] staffCounts = runConfig.getStaffCounts();
+        System.arraycopy(staffCounts, 0, availableStaff, 0, availableStaff.length);
+        System.arraycopy(staffCounts, 0, totalStaff, 0, totalStaff.length);
+        this.staffRequirements = runConfig.staffRequirements();
+    }
+
+    /**
+     * Registers the ER's probes: the waiting room length in total ("waiting") and per triage level ("waiting.RED",
+     * ...), free rooms ("rooms.available"), the share of rooms in use ("rooms.utilization") and, per staff category,
+     * free staff ("staff.nurses.available", ...) and the share of staff in use ("staff.nurses.utilization", ...).
+     *
+     * @param probes The simulation's probes.
+     */
+    public void registerProbes(Probes probes) {
+        probes.gauge("waiting", waitingPatients::size);
+        for (Patient.TriageLevel level : Patient.TriageLevel.values()) {
+            probes.gauge("waiting." + level.name(), () -> waitingPatients.size(level));
+        }
+        probes.gauge("rooms.available", () -> treatmentRooms - occupiedTreatmentRooms);
+        probes.gauge("rooms.utilization",
+                () -> treatmentRooms == 0 ? 0.0 : (double) occupiedTreatmentRooms / treatmentRooms);
+        for (StaffCategory category : StaffCategory.values()) {
+            String prefix = "staff." + category.name().toLowerCase() + ".";
+            int i = category.ordinal();
+            probes.gauge(prefix + "available", () -> availableStaff[i]);
+            probes.gauge(prefix + "utilization",
+                    () -> totalStaff[i] == 0 ? 0.0 : (double) (totalStaff[i] - availableStaff[i]) / totalStaff[i]);
         }
-        availableStaff.put("Nurses",nurses);
-        availableStaff.put("Physicians",physicians);
-        availableStaff.put("Residents",residents);
     }
 
     /**
@@ -82,7 +130,7 @@ public class EmergencyRoom {
 
 
     /**
-     * Retrieves and removes the highest priority waiting patient.
+     * Retrieves and removes the highest priority waiting patient, the earliest arrival among equal priorities.
      *
      * @return The next patient for treatment, or {@code null} if none.
      */
@@ -118,21 +166,128 @@ public class EmergencyRoom {
     }
 
     /**
-     * Simulates taking up staff resources
-     * @param type the type of staff (nurse, physician, resident) that's being used
-     * @param amount the number of staff members of the given type being used
+     * Checks if the free staff can cover the treatment of a patient of the given triage level.
+     *
+     * @param triageLevel The patient's triage level.
+     * @return {@code true} if every staff category has enough free members; {@code false} otherwise.
+     */
+    public boolean hasStaffFor(Patient.TriageLevel triageLevel) {
+        int[] required = staffRequirements[triageLevel.ordinal()];
+        for (int i = 0; i < required.length; i++) {
+            if (required[i] > availableStaff[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return A bitmask with bit {@code level.ordinal()} set for each triage level whose staff requirements the free
+     *         staff can currently cover.
      */
-    public void occupyStaff(String type, double amount){
-        availableStaff.put(type,availableStaff.get(type)-amount);
+    public int staffableLevels() {
+        int levels = 0;
+        for (int level = 0; level < staffRequirements.length; level++) {
+            int[] required = staffRequirements[level];
+            boolean fits = true;
+            for (int i = 0; i < required.length && fits; i++) {
+                fits = required[i] <= availableStaff[i];
+            }
+            if (fits) {
+                levels |= 1 << level;
+            }
+        }
+        return levels;
     }
 
     /**
-     * Simulates freeing up staff resources
-     * @param type the type of staff (nurse, physician, resident) that's being freed
-     * @param amount the number of staff members of the given type being freed
+     * Takes up the staff needed to treat a patient of the given triage level.
+     *
+     * @param triageLevel The patient's triage level.
      */
-    public void freeStaff(String type, double amount){
-        availableStaff.put(type,availableStaff.get(type)+amount);
+    public void occupyStaff(Patient.TriageLevel triageLevel) {
+        int[] required = staffRequirements[triageLevel.ordinal()];
+        for (int i = 0; i < required.length; i++) {
+            availableStaff[i] -= required[i];
+        }
+    }
+
+    /**
+     * Frees the staff that treated a patient of the given triage level.
+     *
+     * @param triageLevel The patient's triage level.
+     */
+    public void freeStaff(Patient.TriageLevel triageLevel) {
+        int[] required = staffRequirements[triageLevel.ordinal()];
+        for (int i = 0; i < required.length; i++) {
+            availableStaff[i] += required[i];
+        }
+    }
+
+    /**
+     * @param category A staff category.
+     * @return The number of free staff members in that category.
+     */
+    public int getAvailableStaff(StaffCategory category) {
+        return availableStaff[category.ordinal()];
+    }
+
+    /**
+     * @param triageLevel A triage level.
+     * @param category    A staff category.
+     * @return The number of staff members of that category a patient of that level needs.
+     */
+    public int getStaffRequirement(Patient.TriageLevel triageLevel, StaffCategory category) {
+        return staffRequirements[triageLevel.ordinal()][category.ordinal()];
+    }
+
+    /**
+     * Returns a snapshot of the free staff keyed by category label ("Nurses", "Physicians", "Residents"), for
+     * reporting. The simulation itself uses the primitive counters.
+     *
+     * @return The free staff per category.
+     */
+    public Map<String,Double> getAvailableStaff() {
+        Map<String,Double> view = new LinkedHashMap<>();
+        for (StaffCategory category : StaffCategory.values()) {
+            view.put(category.getLabel(), (double) availableStaff[category.ordinal()]);
+        }
+        return view;
+    }
+
+    /**
+     * Counts the staff of each category in config.json's staffCounts.
+     */
+    static int[] staffCounts(Config config) {
+        int[] counts = new int[StaffCategory.values().length];
+        for (Map.Entry<String, Integer> entry : config.getStaffCounts().entrySet()) {
+            StaffCategory category = StaffCategory.forRole(entry.getKey());
+            if (category != null) {
+                counts[category.ordinal()] += entry.getValue();
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Precomputes the staff each triage level needs from config.json's triage*Requirements. Fractional
+     * requirements are rounded up, since staff are counted in whole members.
+     */
+    static int[][] staffRequirements(Config config) {
+        Patient.TriageLevel[] levels = Patient.TriageLevel.values();
+        int[][] requirements = new int[levels.length][StaffCategory.values().length];
+        for (Patient.TriageLevel level : levels) {
+            int[] row = requirements[level.ordinal()];
+            row[StaffCategory.NURSES.ordinal()] = requirement(config.getTriageNurseRequirements(), level);
+            row[StaffCategory.PHYSICIANS.ordinal()] = requirement(config.getTriagePhysicianRequirements(), level);
+            row[StaffCategory.RESIDENTS.ordinal()] = requirement(config.getTriageRPRequirements(), level);
+        }
+        return requirements;
+    }
+
+    private static int requirement(Map<String, Double> requirements, Patient.TriageLevel level) {
+        Double required = requirements.get(level.name());
+        return required == null ? 0 : (int) Math.ceil(required);
     }
 
 }
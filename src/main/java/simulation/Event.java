@@ -1,21 +1,47 @@
 package simulation;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 
-import java.time.Duration;
 @Getter
 public class Event implements Comparable<Event>{
-    private final Duration time;
-    private final String type;
+    private long time; // seconds since the start of the simulation, changed only by FutureEventSet.reschedule
+    private final Type type;
     private final Patient patient;
-    public Event(Duration startTime, String type, Patient patient){
-        this.time = startTime;
+    private long sequence; // insertion order, assigned by FutureEventSet to break ties between equal times
+    @Getter(AccessLevel.PACKAGE)
+    private int heapIndex = -1; // position in the FutureEventSet heap, -1 when not scheduled
+    public Event(long time, Type type, Patient patient){
+        this.time = time;
         this.type = type;
         this.patient = patient;
     }
 
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    void setTime(long time) {
+        this.time = time;
+    }
+
+    void setHeapIndex(int heapIndex) {
+        this.heapIndex = heapIndex;
+    }
+
     @Override
     public int compareTo(Event o) {
-        return this.time.compareTo(o.time);
+        int byTime = Long.compare(this.time, o.time);
+        return byTime != 0 ? byTime : Long.compare(this.sequence, o.sequence);
+    }
+
+    /**
+     * The kinds of events the DES can process.
+     */
+    public enum Type {
+        ARRIVAL,
+        RELEASE,
+        RENEGE,     // a waiting patient runs out of patience and leaves without being seen
+        DETERIORATE // a waiting patient's condition worsens by one triage level
     }
 }
@@ -0,0 +1,34 @@
+package simulation;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Samples an exponential distribution with a fixed mean from a caller-supplied generator.
+ * Unlike commons-math distributions, it holds no generator of its own, so one instance can be built per rate
+ * and reused for every draw.
+ */
+public final class ExponentialSampler {
+    private final double mean;
+
+    /**
+     * @param mean The mean of the distribution.
+     */
+    public ExponentialSampler(double mean) {
+        if (!(mean > 0)) {
+            throw new IllegalArgumentException("Exponential mean must be positive: " + mean);
+        }
+        this.mean = mean;
+    }
+
+    /**
+     * @param random The generator to draw from.
+     * @return An exponentially distributed value.
+     */
+    public double sample(RandomGenerator random) {
+        return mean * random.nextExponential();
+    }
+
+    public double getMean() {
+        return mean;
+    }
+}
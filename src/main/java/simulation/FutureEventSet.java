@@ -0,0 +1,186 @@
+package simulation;
+
+import java.util.Arrays;
+
+/**
+ * The pending events of the Discrete Event Simulation, stored as a binary min-heap keyed on event time.
+ * Events that share a time are returned in the order they were added, so the simulation stays deterministic.
+ * Each event records its position in the heap, so the event object itself is the handle for cancelling or moving
+ * it. Adding, cancelling, rescheduling and removing the earliest event all take O(log n).
+ */
+public class FutureEventSet {
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private Event[] heap;
+    private int size;
+    private long nextSequence;
+
+    /**
+     * Constructs an empty event set.
+     */
+    public FutureEventSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty event set with room for the given number of events before it needs to grow.
+     *
+     * @param initialCapacity The number of events the set can hold before resizing.
+     */
+    public FutureEventSet(int initialCapacity) {
+        this.heap = new Event[Math.max(1, initialCapacity)];
+        this.size = 0;
+        this.nextSequence = 0;
+    }
+
+    /**
+     * Schedules an event.
+     *
+     * @param event The event to add. It must not already be scheduled.
+     * @return The event, as the handle for {@link #cancel(Event)} and {@link #reschedule(Event, long)}.
+     */
+    public Event add(Event event) {
+        if (event.getHeapIndex() >= 0) {
+            throw new IllegalStateException("Event is already scheduled");
+        }
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, heap.length * 2);
+        }
+        event.setSequence(nextSequence++);
+        size++;
+        siftUp(size - 1, event);
+        return event;
+    }
+
+    /**
+     * @param event An event.
+     * @return {@code true} if the event is pending in this set.
+     */
+    public boolean contains(Event event) {
+        int index = event.getHeapIndex();
+        return index >= 0 && index < size && heap[index] == event;
+    }
+
+    /**
+     * Removes a pending event.
+     *
+     * @param event The event to cancel.
+     * @return {@code true} if the event was pending; {@code false} if it had already fired or been cancelled.
+     */
+    public boolean cancel(Event event) {
+        if (!contains(event)) {
+            return false;
+        }
+        removeAt(event.getHeapIndex());
+        return true;
+    }
+
+    /**
+     * Moves a pending event to a new time. It is ordered after events already scheduled for that time.
+     *
+     * @param event The event to move.
+     * @param time  The new time in seconds since the start of the simulation.
+     * @return {@code true} if the event was pending and has been moved; {@code false} otherwise.
+     */
+    public boolean reschedule(Event event, long time) {
+        if (!contains(event)) {
+            return false;
+        }
+        removeAt(event.getHeapIndex());
+        event.setTime(time);
+        add(event);
+        return true;
+    }
+
+    /**
+     * Returns the earliest event without removing it.
+     *
+     * @return The earliest event, or {@code null} if the set is empty.
+     */
+    public Event peek() {
+        return size == 0 ? null : heap[0];
+    }
+
+    /**
+     * Removes and returns the earliest event.
+     *
+     * @return The earliest event, or {@code null} if the set is empty.
+     */
+    public Event poll() {
+        if (size == 0) {
+            return null;
+        }
+        Event first = heap[0];
+        removeAt(0);
+        return first;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all pending events.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            heap[i].setHeapIndex(-1);
+            heap[i] = null;
+        }
+        size = 0;
+        nextSequence = 0;
+    }
+
+    private void removeAt(int index) {
+        Event removed = heap[index];
+        size--;
+        Event last = heap[size];
+        heap[size] = null;
+        removed.setHeapIndex(-1);
+        if (index < size) {
+            // The last event takes the freed slot and moves whichever way restores the heap order
+            siftDown(index, last);
+            if (heap[index] == last) {
+                siftUp(index, last);
+            }
+        }
+    }
+
+    private void siftUp(int index, Event event) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            Event parentEvent = heap[parent];
+            if (event.compareTo(parentEvent) >= 0) {
+                break;
+            }
+            heap[index] = parentEvent;
+            parentEvent.setHeapIndex(index);
+            index = parent;
+        }
+        heap[index] = event;
+        event.setHeapIndex(index);
+    }
+
+    private void siftDown(int index, Event event) {
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && heap[right].compareTo(heap[child]) < 0) {
+                child = right;
+            }
+            if (event.compareTo(heap[child]) <= 0) {
+                break;
+            }
+            heap[index] = heap[child];
+            heap[index].setHeapIndex(index);
+            index = child;
+        }
+        heap[index] = event;
+        event.setHeapIndex(index);
+    }
+}
@@ -0,0 +1,55 @@
+package simulation;
+
+/**
+ * The append-only patient journey log (".erjl"): one record per patient who has left the ER, written by
+ * {@link JourneyLogWriter} and read by {@link JourneyLogReader}.
+ * <p>
+ * The file starts with a header (int magic "ERJL", short version, short reserved, long seed) followed by independent
+ * blocks. Each block has a header (int recordCount, int rawLength, int compressedLength, long minArrival,
+ * long maxArrival) and then the Deflate-compressed records. Within a block each record is:
+ * <pre>
+ *   byte   outcome ordinal &lt;&lt; 3 | triage level ordinal
+ *   varint arrival, zigzag-encoded as the difference from the previous record's arrival in the block
+ *          (from 0 for the block's first record)
+ *   varint treatment start - arrival + 1, or 0 if the patient was never treated
+ *   varint departure - treatment start if treated, departure - arrival otherwise
+ * </pre>
+ * Times are seconds since the start of the simulation. A typical record is 4 to 6 bytes before compression. The
+ * arrival range in each block header lets a reader skip blocks outside a time window without decompressing them.
+ * </p>
+ */
+public final class JourneyLog {
+    static final int MAGIC = 0x45524A4C; // "ERJL"
+    static final short VERSION = 1;
+    static final int BLOCK_BYTES = 1 << 16;    // uncompressed records per block, at most
+    static final int MAX_RECORD_BYTES = 1 + 3 * 10;
+    public static final String EXTENSION = ".erjl";
+
+    /**
+     * How a patient's journey ended.
+     */
+    public enum Outcome {
+        TREATED,
+        REJECTED,                // turned away on arrival because the waiting room was full
+        LEFT_WITHOUT_BEING_SEEN
+    }
+
+    private JourneyLog() {}
+
+    static int putVarLong(byte[] buffer, int position, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+        return position;
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,75 @@
+package simulation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Exports a slice of a {@link JourneyLog} as CSV.
+ * <p>
+ * Usage: {@code JourneyLogExporter <journey log> <output csv> [from hour] [to hour] [triage level]}. The slice holds
+ * the journeys of patients who arrived from the start of {@code from hour} up to, not including, {@code to hour}
+ * (the whole run by default), optionally only those who left at one triage level. Times are seconds since the start
+ * of the simulation; the treatment start is empty for patients who were not treated.
+ * </p>
+ */
+public class JourneyLogExporter {
+    private static final long SECONDS_PER_HOUR = 3600;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: JourneyLogExporter <journey log> <output csv> [from hour] [to hour] [triage level]");
+            return;
+        }
+        long from = args.length > 2 ? Long.parseLong(args[2]) * SECONDS_PER_HOUR : Long.MIN_VALUE;
+        long to = args.length > 3 ? Long.parseLong(args[3]) * SECONDS_PER_HOUR : Long.MAX_VALUE;
+        Patient.TriageLevel level = args.length > 4 ? Patient.TriageLevel.valueOf(args[4].toUpperCase()) : null;
+        long exported = export(Paths.get(args[0]), Paths.get(args[1]), from, to, level);
+        System.out.println("Exported " + exported + " journeys to " + args[1]);
+    }
+
+    /**
+     * Exports the journeys of patients who arrived in a time window.
+     *
+     * @param log         The journey log.
+     * @param csv         The CSV file to write.
+     * @param fromArrival The start of the window in seconds, inclusive.
+     * @param toArrival   The end of the window in seconds, exclusive.
+     * @param triageLevel Only export journeys that ended at this triage level, or {@code null} for all levels.
+     * @return The number of journeys exported.
+     * @throws IOException If the log cannot be read or the CSV cannot be written.
+     */
+    public static long export(Path log, Path csv, long fromArrival, long toArrival, Patient.TriageLevel triageLevel)
+            throws IOException {
+        JourneyLogReader reader = JourneyLogReader.open(log);
+        long[] exported = {0};
+        try (Writer out = Files.newBufferedWriter(csv)) {
+            out.write("Arrival,Treatment Start,Departure,Triage Level,Outcome\n");
+            StringBuilder row = new StringBuilder();
+            reader.scan(fromArrival, toArrival, (level, outcome, arrival, treatmentStart, departure) -> {
+                if (triageLevel != null && level != triageLevel) {
+                    return;
+                }
+                row.setLength(0);
+                row.append(arrival).append(',');
+                if (treatmentStart >= 0) {
+                    row.append(treatmentStart);
+                }
+                row.append(',').append(departure).append(',').append(level.name()).append(',').append(outcome.name())
+                        .append('\n');
+                try {
+                    out.append(row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                exported[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return exported[0];
+    }
+}
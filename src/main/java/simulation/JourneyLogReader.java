@@ -0,0 +1,195 @@
+package simulation;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Scans a {@link JourneyLog} file. Records are decoded straight into the arguments of a {@link Visitor}, so a scan
+ * allocates nothing per journey, and blocks whose arrivals all fall outside the requested window are skipped without
+ * being decompressed.
+ */
+public class JourneyLogReader {
+    private static final Patient.TriageLevel[] LEVELS = Patient.TriageLevel.values();
+    private static final JourneyLog.Outcome[] OUTCOMES = JourneyLog.Outcome.values();
+
+    /**
+     * Receives the journeys of a scan.
+     */
+    @FunctionalInterface
+    public interface Visitor {
+        /**
+         * @param triageLevel    The patient's triage level when they left.
+         * @param outcome        How the journey ended.
+         * @param arrival        The arrival time in seconds.
+         * @param treatmentStart The start of treatment in seconds, or -1 if the patient was not treated.
+         * @param departure      The time the patient left, in seconds.
+         */
+        void visit(Patient.TriageLevel triageLevel, JourneyLog.Outcome outcome, long arrival, long treatmentStart,
+                   long departure);
+    }
+
+    private final Path path;
+    private final long seed;
+
+    private JourneyLogReader(Path path, long seed) {
+        this.path = path;
+        this.seed = seed;
+    }
+
+    /**
+     * Reads the header of a journey log.
+     *
+     * @param path The file.
+     * @return The reader.
+     * @throws IOException If the file cannot be read or is not a journey log.
+     */
+    public static JourneyLogReader open(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+            return new JourneyLogReader(path, readHeader(in));
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Visits every journey, in the order they were recorded.
+     *
+     * @param visitor Receives the journeys.
+     * @return The number of journeys visited.
+     * @throws IOException If the file cannot be read or is corrupt.
+     */
+    public long scan(Visitor visitor) throws IOException {
+        return scan(Long.MIN_VALUE, Long.MAX_VALUE, visitor);
+    }
+
+    /**
+     * Visits the journeys of patients who arrived in a time window, in the order they were recorded.
+     *
+     * @param fromArrival The start of the window in seconds, inclusive.
+     * @param toArrival   The end of the window in seconds, exclusive.
+     * @param visitor     Receives the journeys.
+     * @return The number of journeys visited.
+     * @throws IOException If the file cannot be read or is corrupt.
+     */
+    public long scan(long fromArrival, long toArrival, Visitor visitor) throws IOException {
+        long visited = 0;
+        Inflater inflater = new Inflater();
+        byte[] compressed = new byte[JourneyLog.BLOCK_BYTES];
+        byte[] records = new byte[JourneyLog.BLOCK_BYTES];
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            readHeader(in);
+            while (true) {
+                int recordCount;
+                try {
+                    recordCount = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                int rawLength = in.readInt();
+                int compressedLength = in.readInt();
+                long minArrival = in.readLong();
+                long maxArrival = in.readLong();
+                if (maxArrival < fromArrival || minArrival >= toArrival) {
+                    skipFully(in, compressedLength);
+                    continue;
+                }
+                if (compressed.length < compressedLength) {
+                    compressed = new byte[compressedLength];
+                }
+                if (records.length < rawLength) {
+                    records = new byte[rawLength];
+                }
+                in.readFully(compressed, 0, compressedLength);
+                inflater.reset();
+                inflater.setInput(compressed, 0, compressedLength);
+                try {
+                    if (inflater.inflate(records, 0, rawLength) != rawLength) {
+                        throw new IOException(path + " has a truncated block");
+                    }
+                } catch (DataFormatException e) {
+                    throw new IOException(path + " has a corrupt block", e);
+                }
+                visited += decode(records, recordCount, fromArrival, toArrival, visitor);
+            }
+        } finally {
+            inflater.end();
+        }
+        return visited;
+    }
+
+    private static long decode(byte[] b, int recordCount, long fromArrival, long toArrival, Visitor visitor) {
+        long visited = 0;
+        long arrival = 0;
+        int p = 0;
+        for (int i = 0; i < recordCount; i++) {
+            int code = b[p++];
+            // Inline varint decoding: this loop is the whole cost of a scan
+            long v = 0;
+            int shift = 0;
+            byte x;
+            do {
+                x = b[p++];
+                v |= (long) (x & 0x7F) << shift;
+                shift += 7;
+            } while (x < 0);
+            arrival += JourneyLog.unZigZag(v);
+            long start = 0;
+            shift = 0;
+            do {
+                x = b[p++];
+                start |= (long) (x & 0x7F) << shift;
+                shift += 7;
+            } while (x < 0);
+            long duration = 0;
+            shift = 0;
+            do {
+                x = b[p++];
+                duration |= (long) (x & 0x7F) << shift;
+                shift += 7;
+            } while (x < 0);
+            if (arrival < fromArrival || arrival >= toArrival) {
+                continue;
+            }
+            long treatmentStart = start == 0 ? -1 : arrival + start - 1;
+            long departure = (start == 0 ? arrival : treatmentStart) + duration;
+            visitor.visit(LEVELS[code & 0x7], OUTCOMES[code >>> 3], arrival, treatmentStart, departure);
+            visited++;
+        }
+        return visited;
+    }
+
+    private static long readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != JourneyLog.MAGIC) {
+            throw new IOException("Not a journey log");
+        }
+        short version = in.readShort();
+        if (version != JourneyLog.VERSION) {
+            throw new IOException("Unsupported journey log version " + version);
+        }
+        in.readShort();
+        return in.readLong();
+    }
+
+    private static void skipFully(InputStream in, long bytes) throws IOException {
+        while (bytes > 0) {
+            long skipped = in.skip(bytes);
+            if (skipped <= 0) {
+                throw new EOFException();
+            }
+            bytes -= skipped;
+        }
+    }
+}
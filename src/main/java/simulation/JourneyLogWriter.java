@@ -0,0 +1,236 @@
+package simulation;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * Appends patient journeys to a {@link JourneyLog} file.
+ * <p>
+ * The simulation thread only encodes records into the current block, which costs a few byte writes per journey.
+ * Full blocks are handed to a background thread through a small bounded queue, and that thread compresses and
+ * writes them. If the disk falls behind, the simulation blocks on the queue rather than buffering without bound.
+ * A failure on the writer thread is rethrown by the next {@link #record} or by {@link #close()}.
+ * </p>
+ */
+public class JourneyLogWriter implements Closeable {
+    private static final int QUEUED_BLOCKS = 4;
+    private static final Block END = new Block(new byte[0], 0, 0, 0);
+
+    private final File file;
+    private final BlockingQueue<Block> queue = new ArrayBlockingQueue<>(QUEUED_BLOCKS);
+    private final Thread writerThread;
+    private volatile Throwable failure;
+
+    private final byte[] buffer = new byte[JourneyLog.BLOCK_BYTES];
+    private int position;
+    private int recordCount;
+    private long previousArrival;
+    private long minArrival = Long.MAX_VALUE;
+    private long maxArrival = Long.MIN_VALUE;
+    private long journeys;
+    private boolean closed;
+
+    /**
+     * Creates the file, and its directory if needed, and starts the writer thread.
+     *
+     * @param file The file to write.
+     * @param seed The seed of the run, stored in the header.
+     * @throws IOException If the file cannot be created.
+     */
+    public JourneyLogWriter(File file, long seed) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (directory != null) {
+            directory.mkdirs();
+        }
+        this.file = file;
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        try {
+            out.writeInt(JourneyLog.MAGIC);
+            out.writeShort(JourneyLog.VERSION);
+            out.writeShort(0);
+            out.writeLong(seed);
+        } catch (IOException e) {
+            out.close();
+            throw e;
+        }
+        this.writerThread = new Thread(() -> writeBlocks(out), "journey-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Appends a journey.
+     *
+     * @param triageLevel    The patient's triage level when they left.
+     * @param outcome        How the journey ended.
+     * @param arrival        The arrival time in seconds.
+     * @param treatmentStart The start of treatment in seconds, or -1 if the patient was not treated.
+     * @param departure      The time the patient left, in seconds.
+     */
+    public void record(Patient.TriageLevel triageLevel, JourneyLog.Outcome outcome, long arrival, long treatmentStart,
+                       long departure) {
+        if (position > JourneyLog.BLOCK_BYTES - JourneyLog.MAX_RECORD_BYTES) {
+            submitBlock();
+        }
+        byte[] b = buffer;
+        int p = position;
+        b[p++] = (byte) (outcome.ordinal() << 3 | triageLevel.ordinal());
+        p = JourneyLog.putVarLong(b, p, JourneyLog.zigZag(arrival - previousArrival));
+        if (treatmentStart < 0) {
+            p = JourneyLog.putVarLong(b, p, 0);
+            p = JourneyLog.putVarLong(b, p, departure - arrival);
+        } else {
+            p = JourneyLog.putVarLong(b, p, treatmentStart - arrival + 1);
+            p = JourneyLog.putVarLong(b, p, departure - treatmentStart);
+        }
+        position = p;
+        if (recordCount == 0) {
+            minArrival = arrival;
+            maxArrival = arrival;
+        } else {
+            minArrival = Math.min(minArrival, arrival);
+            maxArrival = Math.max(maxArrival, arrival);
+        }
+        previousArrival = arrival;
+        recordCount++;
+        journeys++;
+    }
+
+    /**
+     * Appends the journey of a patient who has left.
+     *
+     * @param patient        The patient.
+     * @param outcome        How the journey ended.
+     * @param treatmentStart The start of treatment in seconds, or -1 if the patient was not treated.
+     * @param departure      The time the patient left, in seconds.
+     */
+    public void record(Patient patient, JourneyLog.Outcome outcome, long treatmentStart, long departure) {
+        record(patient.getTriageLevel(), outcome, patient.getArrivalTime(), treatmentStart, departure);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return The number of journeys recorded.
+     */
+    public long getJourneys() {
+        return journeys;
+    }
+
+    /**
+     * Writes the last block and waits for the writer thread to finish.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (recordCount > 0) {
+            submitBlock();
+        }
+        enqueue(END);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while closing " + file, e);
+        }
+        checkFailure();
+    }
+
+    private void submitBlock() {
+        checkFailure();
+        enqueue(new Block(Arrays.copyOf(buffer, position), recordCount, minArrival, maxArrival));
+        position = 0;
+        recordCount = 0;
+        previousArrival = 0; // blocks decode independently
+    }
+
+    private void enqueue(Block block) {
+        try {
+            queue.put(block);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing " + file, e);
+        }
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new UncheckedIOException("Could not write " + file,
+                    failure instanceof IOException ? (IOException) failure : new IOException(failure));
+        }
+    }
+
+    /**
+     * The writer thread: compresses and writes blocks until the end marker.
+     */
+    private void writeBlocks(DataOutputStream out) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        byte[] compressed = new byte[JourneyLog.BLOCK_BYTES + 1024];
+        try (out) {
+            Block block;
+            while ((block = queue.take()) != END) {
+                deflater.reset();
+                deflater.setInput(block.records);
+                deflater.finish();
+                int length = 0;
+                while (!deflater.finished()) {
+                    if (length == compressed.length) {
+                        compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                    }
+                    length += deflater.deflate(compressed, length, compressed.length - length);
+                }
+                out.writeInt(block.recordCount);
+                out.writeInt(block.records.length);
+                out.writeInt(length);
+                out.writeLong(block.minArrival);
+                out.writeLong(block.maxArrival);
+                out.write(compressed, 0, length);
+            }
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+            drain(); // keep taking blocks so the simulation thread never blocks on a dead writer
+        } catch (InterruptedException e) {
+            failure = e;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void drain() {
+        try {
+            while (queue.take() != END) {
+                // discard, the failure is reported to the simulation thread
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Block {
+        final byte[] records;
+        final int recordCount;
+        final long minArrival;
+        final long maxArrival;
+
+        Block(byte[] records, int recordCount, long minArrival, long maxArrival) {
+            this.records = records;
+            this.recordCount = recordCount;
+            this.minArrival = minArrival;
+            this.maxArrival = maxArrival;
+        }
+    }
+}
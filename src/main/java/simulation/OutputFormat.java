@@ -0,0 +1,48 @@
+package simulation;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * The files a run can write, see the outputFormats setting in config.json. Runs write only the CSV log by default.
+ */
+public enum OutputFormat {
+    /** Text, one row per hour, see {@link CsvProbeWriter}. */
+    CSV(".csv"),
+    /** Columnar binary, see {@link RunFile}. Opt-in, as it maps a file sized for the whole run up front. */
+    BINARY(RunFile.EXTENSION),
+    /** Not an hourly log but one record per patient, see {@link JourneyLog}. Opt-in, as it runs a writer thread. */
+    JOURNEYS(JourneyLog.EXTENSION);
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("ddMMHHmmss");
+
+    private final String extension;
+
+    OutputFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Resolves a log file name pattern. {@code {timestamp}} is replaced by the current date and time (ddMMHHmmss) and
+     * {@code {seed}} by the simulation's seed.
+     *
+     * @param pattern The file name pattern, without extension, e.g. "log_{timestamp}_{seed}".
+     * @param seed    The seed of the run.
+     * @return The file name shared by all outputs of the run.
+     */
+    public static String baseName(String pattern, long seed) {
+        return pattern.replace("{timestamp}", LocalDateTime.now().format(TIMESTAMP))
+                .replace("{seed}", Long.toString(seed));
+    }
+
+    /**
+     * @param directory The output directory; empty or {@code null} for the working directory.
+     * @param baseName  The file name without extension, see {@link #baseName(String, long)}.
+     * @return The output file in this format.
+     */
+    public File file(String directory, String baseName) {
+        String name = baseName + extension;
+        return directory == null || directory.isEmpty() ? new File(name) : new File(directory, name);
+    }
+}
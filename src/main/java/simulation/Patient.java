@@ -1,10 +1,10 @@
 package simulation;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.time.Duration;
-import java.time.LocalDateTime;
 import java.util.UUID;
 
 /**
@@ -14,13 +14,24 @@ import java.util.UUID;
 @Getter
 @Setter
 public class Patient {
-    private final UUID id;
-    private String name;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private UUID id;     // assigned on first use, see getId()
+    @Setter(AccessLevel.PACKAGE)
+    private long serial; // unique within a run and reproducible from its seed, 0 if not generated by a run
+    @Getter(AccessLevel.NONE)
+    private String name; // derived from the id on first use, see getName()
     private int age;
     private TriageLevel triageLevel;
-    private Duration arrivalTime;
-    private Duration treatmentTime;
-    private Duration dischargeTime;
+    private long arrivalTime;   // seconds since the start of the simulation
+    private long treatmentTime; // treatment length in seconds
+    private long dischargeTime; // seconds since the start of the simulation
+    @Setter(AccessLevel.PACKAGE)
+    private boolean waiting;    // in a WaitingRoom; cleared when the patient leaves it
+    private Event renegeEvent;  // pending reneging event while waiting, null otherwise
+    private Event deteriorationEvent; // pending deterioration event while waiting, null otherwise
+    @Setter(AccessLevel.PACKAGE)
+    private double deteriorationDraw; // unit-mean exponential draw that times the next deterioration while waiting
 
     /**
      * Constructs a new Patient with the given attributes.
@@ -29,16 +40,73 @@ public class Patient {
      * @param name           Name of the patient.
      * @param age            Age of the patient.
      * @param triageLevel    Assigned triage level.
-     * @param arrivalTime    Timestamp of patient arrival.
+     * @param arrivalTime    Arrival time in seconds since the start of the simulation.
+     * @param treatmentTime  Length of the patient's treatment in seconds.
      */
-    public Patient(UUID id, String name, int age, TriageLevel triageLevel, Duration arrivalTime, Duration treatmentTime) {
+    public Patient(UUID id, String name, int age, TriageLevel triageLevel, long arrivalTime, long treatmentTime) {
         this.id = id;
         this.name = name;
         this.age = age;
         this.triageLevel = triageLevel;
         this.arrivalTime = arrivalTime;
         this.treatmentTime = treatmentTime;
-        this.dischargeTime = arrivalTime.plus(treatmentTime);
+        this.dischargeTime = arrivalTime + treatmentTime;
+    }
+
+    /**
+     * Constructs a new Patient whose id and name are only created if something asks for them,
+     * so that generating patients in the simulation loop does not allocate them.
+     *
+     * @param age            Age of the patient.
+     * @param triageLevel    Assigned triage level.
+     * @param arrivalTime    Arrival time in seconds since the start of the simulation.
+     * @param treatmentTime  Length of the patient's treatment in seconds.
+     */
+    public Patient(int age, TriageLevel triageLevel, long arrivalTime, long treatmentTime) {
+        this(null, null, age, triageLevel, arrivalTime, treatmentTime);
+    }
+
+    /**
+     * @return The patient's unique identifier, created on first call if none was given. Patients of a simulation run
+     *         get an id derived from their serial, so ids are reproducible from the run's seed and creating one does
+     *         not go through the shared SecureRandom of {@link UUID#randomUUID()}.
+     */
+    public UUID getId() {
+        if (id == null) {
+            id = serial != 0 ? new UUID(RandomStreams.mix(serial), serial) : UUID.randomUUID();
+        }
+        return id;
+    }
+
+    /**
+     * @return The patient's name, derived from the id on first call if none was given.
+     */
+    public String getName() {
+        if (name == null) {
+            name = "Patient" + Math.abs(getId().hashCode() % 10000);
+        }
+        return name;
+    }
+
+    /**
+     * @return The arrival time as a {@link Duration} since the start of the simulation.
+     */
+    public Duration getArrivalDuration() {
+        return Duration.ofSeconds(arrivalTime);
+    }
+
+    /**
+     * @return The treatment length as a {@link Duration}.
+     */
+    public Duration getTreatmentDuration() {
+        return Duration.ofSeconds(treatmentTime);
+    }
+
+    /**
+     * @return The discharge time as a {@link Duration} since the start of the simulation.
+     */
+    public Duration getDischargeDuration() {
+        return Duration.ofSeconds(dischargeTime);
     }
 
     /**
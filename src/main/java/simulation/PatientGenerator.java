@@ -0,0 +1,78 @@
+package simulation;
+
+import simulation.triage_classifiers.TriageClassifier;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Generates random patients for the simulators: an age, a diagnosis drawn from observed diagnosis frequencies,
+ * a triage level from the active {@link TriageClassifier} (with a 5% chance of escalation by one level) and a
+ * treatment time for that level. Diagnosis, classification and escalation come from one draw on the classifier's
+ * {@link PatientProfileSampler}.
+ * <p>
+ * Age, profile and treatment time each come from their own {@link RandomStreams} stream and take a fixed number of
+ * draws per patient, so the i-th patient of two runs with the same seed gets the same draws whatever the classifier.
+ * The samplers are built once, so generating a patient allocates nothing but the patient itself.
+ * </p>
+ * <p>
+ * Each patient gets a serial, consecutive from a base derived from the seed, from which their id and name are
+ * created only if something asks for them.
+ * </p>
+ */
+public class PatientGenerator {
+    private static final long SERIAL_SALT = 0x2545F4914F6CDD1DL;
+
+    private final RandomGenerator demographics;
+    private final RandomGenerator triage;
+    private final RandomGenerator treatment;
+    private final TreatmentTimeSampler treatmentTimes;
+    private final int minAge;
+    private final int ageRange;
+    private PatientProfileSampler profiles;
+    private long nextSerial;
+
+    /**
+     * @param streams          The run's random streams.
+     * @param triageClassifier The classifier mapping diagnoses to triage levels.
+     * @param treatmentTimes   The treatment time sampler.
+     * @param minAge           The youngest possible patient age.
+     * @param maxAge           The oldest possible patient age.
+     */
+    public PatientGenerator(RandomStreams streams, TriageClassifier triageClassifier,
+                            TreatmentTimeSampler treatmentTimes, int minAge, int maxAge) {
+        this.demographics = streams.get(RandomStreams.Stream.DEMOGRAPHICS);
+        this.triage = streams.get(RandomStreams.Stream.TRIAGE);
+        this.treatment = streams.get(RandomStreams.Stream.TREATMENT_TIMES);
+        this.profiles = PatientProfileSampler.forClassifier(triageClassifier);
+        this.treatmentTimes = treatmentTimes;
+        this.minAge = minAge;
+        this.ageRange = maxAge - minAge + 1;
+        this.nextSerial = RandomStreams.mix(streams.getSeed() ^ SERIAL_SALT);
+    }
+
+    /**
+     * Switches to the cached profile sampler of another classifier.
+     * @param triageClassifier the classifier to use for subsequent patients
+     */
+    public void setTriageClassifier(TriageClassifier triageClassifier) {
+        this.profiles = PatientProfileSampler.forClassifier(triageClassifier);
+    }
+
+    /**
+     * Generates a random patient according to a set of probabilities regarding diagnoses with varying triage levels.
+     * @param arrivalTime the patient's arrival time, in seconds since the start of the simulation
+     * @return a random Patient object
+     */
+    public Patient generate(long arrivalTime) {
+        int age = minAge + demographics.nextInt(ageRange);
+        int profile = profiles.sample(triage.nextDouble());
+        Patient.TriageLevel triageLevel = profiles.triageLevel(profile);
+        long treatmentTime = treatmentTimes.sampleSeconds(triageLevel, treatment);
+        Patient patient = new Patient(age, triageLevel, arrivalTime, treatmentTime);
+        if (nextSerial == 0) {
+            nextSerial++; // 0 means no serial
+        }
+        patient.setSerial(nextSerial++);
+        return patient;
+    }
+}
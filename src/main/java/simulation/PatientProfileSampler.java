@@ -0,0 +1,165 @@
+package simulation;
+
+import simulation.triage_classifiers.TriageClassifier;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Samples a patient's diagnosis and final triage level from a single uniform draw in O(1).
+ * <p>
+ * The diagnosis distribution is held in a Walker/Vose alias table. Each draw picks an alias-table column from the
+ * integer part of {@code u * n} and accepts the column or its alias using the fractional part. The remaining
+ * randomness in that fractional part is again uniform, and it decides the 5% escalation by one triage level.
+ * A classifier is compiled into a table from (diagnosis, escalated) to the final {@link Patient.TriageLevel}, so no
+ * classifier switch runs per patient.
+ * </p>
+ * The probabilities are taken from the running sums of the observed diagnosis frequencies, capped at 1. This is
+ * exactly the distribution of a linear cumulative scan over the same frequencies, including its fallback to the last
+ * diagnosis. Samplers are immutable and cached per classifier type.
+ */
+public final class PatientProfileSampler {
+    static final double ESCALATION_PROBABILITY = 0.05;
+    private static final double[] DIAGNOSIS_PROBS = {
+            3.72908417e-02, 3.45021445e-02, 6.44438692e-04, 1.42655116e-01,
+            4.82845207e-03, 2.06028792e-01, 4.42272662e-02, 1.19613046e-02,
+            6.28956682e-06, 9.97375315e-02, 2.83615920e-02, 7.33431225e-02,
+            1.14778789e-01, 4.28604950e-02, 4.97795023e-02, 4.95869448e-02,
+            5.94073777e-02
+    };
+    private static final int DIAGNOSES = DIAGNOSIS_PROBS.length;
+    private static final double[] ACCEPT = new double[DIAGNOSES]; // probability of keeping the column's own diagnosis
+    private static final int[] ALIAS = new int[DIAGNOSES];
+    private static final Map<Class<?>, PatientProfileSampler> CACHE = new ConcurrentHashMap<>();
+
+    static {
+        buildAliasTable(effectiveProbabilities());
+    }
+
+    // triageLevels[2 * diagnosisIndex + (escalated ? 1 : 0)]
+    private final Patient.TriageLevel[] triageLevels;
+
+    private PatientProfileSampler(TriageClassifier classifier) {
+        this.triageLevels = new Patient.TriageLevel[2 * DIAGNOSES];
+        for (int d = 0; d < DIAGNOSES; d++) {
+            Patient.TriageLevel level = classifier.classify(d + 1);
+            triageLevels[2 * d] = level;
+            triageLevels[2 * d + 1] = escalate(level);
+        }
+    }
+
+    /**
+     * Returns the sampler for a classifier, compiling it on first use.
+     *
+     * @param classifier The triage classifier.
+     * @return The sampler for that classifier type.
+     */
+    public static PatientProfileSampler forClassifier(TriageClassifier classifier) {
+        return CACHE.computeIfAbsent(classifier.getClass(), type -> new PatientProfileSampler(classifier));
+    }
+
+    /**
+     * Maps one uniform draw to a patient profile.
+     *
+     * @param u A uniform value in [0, 1).
+     * @return The profile, to be decoded with {@link #diagnosis(int)} and {@link #triageLevel(int)}.
+     */
+    public int sample(double u) {
+        double scaled = u * DIAGNOSES;
+        int column = Math.min((int) scaled, DIAGNOSES - 1);
+        double fraction = scaled - column;
+        double accept = ACCEPT[column];
+        int diagnosisIndex;
+        double coin;
+        if (fraction < accept) {
+            diagnosisIndex = column;
+            coin = fraction / accept;
+        } else {
+            diagnosisIndex = ALIAS[column];
+            coin = (fraction - accept) / (1.0 - accept);
+        }
+        return 2 * diagnosisIndex + (coin < ESCALATION_PROBABILITY ? 1 : 0);
+    }
+
+    /**
+     * @param profile A profile returned by {@link #sample(double)}.
+     * @return The diagnosis code (1-based).
+     */
+    public int diagnosis(int profile) {
+        return profile / 2 + 1;
+    }
+
+    /**
+     * @param profile A profile returned by {@link #sample(double)}.
+     * @return The final triage level, after any escalation.
+     */
+    public Patient.TriageLevel triageLevel(int profile) {
+        return triageLevels[profile];
+    }
+
+    /**
+     * @param profile A profile returned by {@link #sample(double)}.
+     * @return Whether the patient was escalated by one triage level.
+     */
+    public boolean isEscalated(int profile) {
+        return (profile & 1) == 1;
+    }
+
+    private static Patient.TriageLevel escalate(Patient.TriageLevel level) {
+        return switch (level) {
+            case BLUE -> Patient.TriageLevel.GREEN;
+            case GREEN -> Patient.TriageLevel.YELLOW;
+            case YELLOW -> Patient.TriageLevel.ORANGE;
+            case ORANGE, RED -> Patient.TriageLevel.RED; // RED remains RED
+        };
+    }
+
+    /**
+     * @return The probability of each diagnosis under a cumulative scan that falls back to the last diagnosis.
+     */
+    private static double[] effectiveProbabilities() {
+        double[] probabilities = new double[DIAGNOSES];
+        double previous = 0.0;
+        double cumulative = 0.0;
+        for (int i = 0; i < DIAGNOSES; i++) {
+            cumulative += DIAGNOSIS_PROBS[i];
+            double capped = i == DIAGNOSES - 1 ? 1.0 : Math.min(cumulative, 1.0);
+            probabilities[i] = capped - previous;
+            previous = capped;
+        }
+        return probabilities;
+    }
+
+    /**
+     * Builds the alias table with Vose's algorithm.
+     */
+    private static void buildAliasTable(double[] probabilities) {
+        double[] scaled = new double[DIAGNOSES];
+        ArrayDeque<Integer> small = new ArrayDeque<>();
+        ArrayDeque<Integer> large = new ArrayDeque<>();
+        for (int i = 0; i < DIAGNOSES; i++) {
+            scaled[i] = probabilities[i] * DIAGNOSES;
+            (scaled[i] < 1.0 ? small : large).push(i);
+        }
+        while (!small.isEmpty() && !large.isEmpty()) {
+            int less = small.pop();
+            int more = large.pop();
+            ACCEPT[less] = scaled[less];
+            ALIAS[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+            (scaled[more] < 1.0 ? small : large).push(more);
+        }
+        // Whatever is left is 1 up to rounding
+        while (!large.isEmpty()) {
+            int i = large.pop();
+            ACCEPT[i] = 1.0;
+            ALIAS[i] = i;
+        }
+        while (!small.isEmpty()) {
+            int i = small.pop();
+            ACCEPT[i] = 1.0;
+            ALIAS[i] = i;
+        }
+    }
+}
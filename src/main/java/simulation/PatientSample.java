@@ -0,0 +1,67 @@
+package simulation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * The treated patients a run keeps for inspection: none, all of them, or a uniform random sample of a fixed size
+ * (reservoir sampling, Vitter's algorithm R), so that the memory used does not grow with the run length.
+ */
+public final class PatientSample {
+    /** The capacity that keeps every patient. */
+    public static final int ALL = -1;
+
+    private final int capacity;
+    private final SplittableRandom random;
+    private final List<Patient> patients = new ArrayList<>();
+    private long seen;
+
+    /**
+     * @param capacity The number of patients to keep: {@link #ALL}, 0 for none, or the size of a random sample.
+     * @param random   Chooses the sampled patients.
+     */
+    public PatientSample(int capacity, SplittableRandom random) {
+        if (capacity < ALL) {
+            throw new IllegalArgumentException("Invalid patient sample size: " + capacity);
+        }
+        this.capacity = capacity;
+        this.random = random;
+    }
+
+    /**
+     * Offers a patient to the sample. Every patient offered so far is kept with the same probability.
+     *
+     * @param patient The patient.
+     */
+    public void add(Patient patient) {
+        seen++;
+        if (capacity == ALL || patients.size() < capacity) {
+            patients.add(patient);
+        } else if (capacity > 0) {
+            long slot = random.nextLong(seen);
+            if (slot < capacity) {
+                patients.set((int) slot, patient);
+            }
+        }
+    }
+
+    /**
+     * @return The kept patients, in no particular order once the sample is full.
+     */
+    public List<Patient> getPatients() {
+        return Collections.unmodifiableList(patients);
+    }
+
+    /**
+     * @return The number of patients offered to the sample.
+     */
+    public long getSeen() {
+        return seen;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,171 @@
+package simulation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Streaming statistics of the patients seen in a run, so that the simulation does not need to keep the patients.
+ * <p>
+ * Wait (arrival to start of treatment), treatment and length of stay (arrival to discharge) are kept in minutes as
+ * {@link RunningStatistics}, overall, per triage level and per hour of the day the patient arrived in. Each update is
+ * O(1) and the memory used does not depend on the number of patients.
+ * </p>
+ */
+public final class PatientStatistics {
+    private static final long SECONDS_PER_HOUR = 3600;
+    private static final long HOURS_PER_DAY = 24;
+    private static final double SECONDS_PER_MINUTE = 60.0;
+
+    /**
+     * The measured times of a patient's stay.
+     */
+    public enum Metric {
+        WAIT,
+        TREATMENT,
+        LENGTH_OF_STAY
+    }
+
+    private final RunningStatistics[] overall = new RunningStatistics[Metric.values().length];
+    private final RunningStatistics[][] byTriageLevel =
+            new RunningStatistics[Metric.values().length][Patient.TriageLevel.values().length];
+    private final RunningStatistics[][] byHourOfDay = new RunningStatistics[Metric.values().length][(int) HOURS_PER_DAY];
+
+    public PatientStatistics() {
+        for (int metric = 0; metric < overall.length; metric++) {
+            overall[metric] = new RunningStatistics();
+            for (int level = 0; level < byTriageLevel[metric].length; level++) {
+                byTriageLevel[metric][level] = new RunningStatistics();
+            }
+            for (int hour = 0; hour < byHourOfDay[metric].length; hour++) {
+                byHourOfDay[metric][hour] = new RunningStatistics();
+            }
+        }
+    }
+
+    /**
+     * Records a patient starting treatment.
+     *
+     * @param patient The patient, at the triage level they are treated at.
+     * @param now     The current time in seconds since the start of the simulation.
+     */
+    public void recordTreatmentStart(Patient patient, long now) {
+        add(Metric.WAIT, patient, (now - patient.getArrivalTime()) / SECONDS_PER_MINUTE);
+    }
+
+    /**
+     * Records a patient's discharge.
+     *
+     * @param patient The patient.
+     * @param now     The current time in seconds since the start of the simulation.
+     */
+    public void recordDischarge(Patient patient, long now) {
+        add(Metric.TREATMENT, patient, patient.getTreatmentTime() / SECONDS_PER_MINUTE);
+        add(Metric.LENGTH_OF_STAY, patient, (now - patient.getArrivalTime()) / SECONDS_PER_MINUTE);
+    }
+
+    /**
+     * @param metric A metric.
+     * @return The metric over all patients.
+     */
+    public RunningStatistics get(Metric metric) {
+        return overall[metric.ordinal()];
+    }
+
+    /**
+     * @param metric      A metric.
+     * @param triageLevel A triage level.
+     * @return The metric over the patients of that level.
+     */
+    public RunningStatistics get(Metric metric, Patient.TriageLevel triageLevel) {
+        return byTriageLevel[metric.ordinal()][triageLevel.ordinal()];
+    }
+
+    /**
+     * @param metric    A metric.
+     * @param hourOfDay An hour of the day, 0 to 23.
+     * @return The metric over the patients who arrived in that hour of any day.
+     */
+    public RunningStatistics get(Metric metric, int hourOfDay) {
+        return byHourOfDay[metric.ordinal()][hourOfDay];
+    }
+
+    /**
+     * Adds all patients recorded in another instance to this one.
+     *
+     * @param other The statistics to add.
+     */
+    public void merge(PatientStatistics other) {
+        for (int metric = 0; metric < overall.length; metric++) {
+            overall[metric].merge(other.overall[metric]);
+            for (int level = 0; level < byTriageLevel[metric].length; level++) {
+                byTriageLevel[metric][level].merge(other.byTriageLevel[metric][level]);
+            }
+            for (int hour = 0; hour < byHourOfDay[metric].length; hour++) {
+                byHourOfDay[metric][hour].merge(other.byHourOfDay[metric][hour]);
+            }
+        }
+    }
+
+    /**
+     * Removes all patients, keeping the statistics allocated for reuse by another run.
+     */
+    public void clear() {
+        for (int metric = 0; metric < overall.length; metric++) {
+            overall[metric].clear();
+            for (RunningStatistics statistics : byTriageLevel[metric]) {
+                statistics.clear();
+            }
+            for (RunningStatistics statistics : byHourOfDay[metric]) {
+                statistics.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes the statistics, e.g. to send them to another process that merges them, see
+     * {@link #readFrom(DataInput)}.
+     *
+     * @param out The output.
+     * @throws IOException If the output fails.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        for (int metric = 0; metric < overall.length; metric++) {
+            overall[metric].writeTo(out);
+            for (RunningStatistics statistics : byTriageLevel[metric]) {
+                statistics.writeTo(out);
+            }
+            for (RunningStatistics statistics : byHourOfDay[metric]) {
+                statistics.writeTo(out);
+            }
+        }
+    }
+
+    /**
+     * Reads statistics written by {@link #writeTo(DataOutput)}.
+     *
+     * @param in The input.
+     * @return The statistics.
+     * @throws IOException If the input fails.
+     */
+    public static PatientStatistics readFrom(DataInput in) throws IOException {
+        PatientStatistics statistics = new PatientStatistics();
+        for (int metric = 0; metric < statistics.overall.length; metric++) {
+            statistics.overall[metric] = RunningStatistics.readFrom(in);
+            for (int level = 0; level < statistics.byTriageLevel[metric].length; level++) {
+                statistics.byTriageLevel[metric][level] = RunningStatistics.readFrom(in);
+            }
+            for (int hour = 0; hour < statistics.byHourOfDay[metric].length; hour++) {
+                statistics.byHourOfDay[metric][hour] = RunningStatistics.readFrom(in);
+            }
+        }
+        return statistics;
+    }
+
+    private void add(Metric metric, Patient patient, double minutes) {
+        int m = metric.ordinal();
+        overall[m].add(minutes);
+        byTriageLevel[m][patient.getTriageLevel().ordinal()].add(minutes);
+        byHourOfDay[m][(int) (patient.getArrivalTime() / SECONDS_PER_HOUR % HOURS_PER_DAY)].add(minutes);
+    }
+}
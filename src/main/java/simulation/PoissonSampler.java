@@ -0,0 +1,67 @@
+package simulation;
+
+import org.apache.commons.math3.special.Gamma;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Samples Poisson-distributed counts from a caller-supplied generator, so hourly arrival counts can share the run's
+ * generator instead of building a commons-math distribution (with its own generator) every hour.
+ * <p>
+ * Small means use Knuth's multiplication method; means of 10 and above use Hörmann's transformed rejection
+ * (PTRS), which takes a constant expected number of draws.
+ * </p>
+ */
+public final class PoissonSampler {
+    private static final double PTRS_THRESHOLD = 10.0;
+
+    private PoissonSampler() {}
+
+    /**
+     * @param mean   The mean of the distribution; zero or less always yields 0.
+     * @param random The generator to draw from.
+     * @return A Poisson-distributed count.
+     */
+    public static int sample(double mean, RandomGenerator random) {
+        if (mean <= 0) {
+            return 0;
+        }
+        return mean < PTRS_THRESHOLD ? sampleKnuth(mean, random) : sampleTransformedRejection(mean, random);
+    }
+
+    private static int sampleKnuth(double mean, RandomGenerator random) {
+        double limit = Math.exp(-mean);
+        double product = random.nextDouble();
+        int count = 0;
+        while (product > limit) {
+            product *= random.nextDouble();
+            count++;
+        }
+        return count;
+    }
+
+    private static int sampleTransformedRejection(double mean, RandomGenerator random) {
+        double sqrtMean = Math.sqrt(mean);
+        double logMean = Math.log(mean);
+        double b = 0.931 + 2.53 * sqrtMean;
+        double a = -0.059 + 0.02483 * b;
+        double invAlpha = 1.1239 + 1.1328 / (b - 3.4);
+        double vr = 0.9277 - 3.6224 / (b - 2);
+        while (true) {
+            double u = random.nextDouble() - 0.5;
+            double v = random.nextDouble();
+            double us = 0.5 - Math.abs(u);
+            long k = (long) Math.floor((2 * a / us + b) * u + mean + 0.43);
+            if (us >= 0.07 && v <= vr) {
+                return (int) k;
+            }
+            if (k < 0 || (us < 0.013 && v > us)) {
+                continue;
+            }
+            if (Math.log(v) + Math.log(invAlpha) - Math.log(a / (us * us) + b)
+                    <= -mean + k * logMean - Gamma.logGamma(k + 1)) {
+                return (int) k;
+            }
+        }
+    }
+}
@@ -3,18 +3,14 @@ package simulation;
 import lombok.Getter;
 import lombok.extern.java.Log;
 import simulation.triage_classifiers.CTAS;
-import simulation.triage_classifiers.MTS;
 
-import org.apache.commons.math3.distribution.ExponentialDistribution;
-import org.apache.commons.math3.distribution.PoissonDistribution;
-import org.mariuszgromada.math.mxparser.Argument;
-import org.mariuszgromada.math.mxparser.Expression;
 import org.mariuszgromada.math.mxparser.License;
 
 import java.io.IOException;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.DoubleUnaryOperator;
 import java.util.logging.Level;
 
 /**
@@ -35,7 +31,9 @@ import java.util.logging.Level;
 public class PoissonSimulator {
     private final Config config;
     private final EmergencyRoom er;
-    private final Random random;
+    private final RandomStreams streams;
+    private final SplittableRandom arrivalRandom;
+    private final SplittableRandom treatmentRandom;
     private final int populationSize;
     private LocalDateTime currentTime;
     private final List<Patient> treatingPatients;
@@ -44,9 +42,11 @@ public class PoissonSimulator {
     private int rejectedPatients;
     private int[][] data;
     private int deltaHours;
-    private final Expression arrivalExpression;
-    private final Argument t;
+    private final DoubleUnaryOperator arrivalFunction;
+    private ArrivalIntensityTable arrivalIntensities;
     private final Map<Patient.TriageLevel, Double> avgTreatmentTimes;
+    private final Map<Patient.TriageLevel, ExponentialSampler> treatmentTimeSamplers;
+    private final PatientGenerator patientGenerator;
     private boolean useConfig;
 
     /**
@@ -60,15 +60,17 @@ public class PoissonSimulator {
      * @throws IOException If loading {@link Config} fails.
      */
     public PoissonSimulator(int populationSize) throws IOException {
+        RandomStreams streams = RandomStreams.withRandomSeed();
         this.config = Config.getInstance();
         this.populationSize = populationSize;
         this.er = new EmergencyRoom("MUMC", 30, 15);
         this.currentTime = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0);
-        this.random = new Random();
+        this.streams = streams;
+        this.arrivalRandom = streams.get(RandomStreams.Stream.ARRIVALS);
+        this.treatmentRandom = streams.get(RandomStreams.Stream.TREATMENT_TIMES);
         this.deltaHours = 0;
         this.useConfig = true;
-        this.t = new Argument("t=0");
-        this.arrivalExpression = new Expression("1", t);
+        this.arrivalFunction = ArrivalFunctionCompiler.compile("1");
         this.treatingPatients = new ArrayList<>();
         this.treatedPatients = new ArrayList<>();
         this.epsilon = 0.001;
@@ -81,6 +83,9 @@ public class PoissonSimulator {
             Patient.TriageLevel.GREEN, 30.0,
             Patient.TriageLevel.BLUE, 10.0
         );
+        this.treatmentTimeSamplers = exponentialSamplers(avgTreatmentTimes);
+        this.patientGenerator = new PatientGenerator(
+            streams, new CTAS(), new TreatmentTimeSampler(avgTreatmentTimes, 0.25), 5, 99);
     }
 
     /**
@@ -93,6 +98,16 @@ public class PoissonSimulator {
      * @throws IOException If loading {@link Config} fails.
      */
     public PoissonSimulator() throws IOException {
+        this(RandomStreams.withRandomSeed());
+    }
+
+    /**
+     * Constructs a reproducible PoissonSimulator using configuration parameters from {@link Config}.
+     *
+     * @param streams The random streams of the run, derived from its seed.
+     * @throws IOException If loading {@link Config} fails.
+     */
+    public PoissonSimulator(RandomStreams streams) throws IOException {
         this.config = Config.getInstance();
         this.populationSize = config.getPopulationSize();
         this.er = new EmergencyRoom(
@@ -101,21 +116,22 @@ public class PoissonSimulator {
             config.getERTreatmentRooms()
         );
         this.currentTime = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0);
-        this.random = new Random();
+        this.streams = streams;
+        this.arrivalRandom = streams.get(RandomStreams.Stream.ARRIVALS);
+        this.treatmentRandom = streams.get(RandomStreams.Stream.TREATMENT_TIMES);
         this.deltaHours = 0;
         this.useConfig = true;
-        this.t = new Argument("t=0");
 
         // Confirm non‐commercial use for mxparser
         License.iConfirmNonCommercialUse("KEN12");
         String exprString = config.getPatientArrivalFunctions()
                                    .get(config.getDefaultArrivalFunction());
-        this.arrivalExpression = new Expression(exprString, t);
+        this.arrivalFunction = ArrivalFunctionCompiler.compile(exprString);
         System.out.println(
             "Initialized with expression '"
             + config.getDefaultArrivalFunction()
             + "': f(t) = "
-            + arrivalExpression.getExpressionString()
+            + exprString
         );
 
         this.treatingPatients = new ArrayList<>();
@@ -130,6 +146,16 @@ public class PoissonSimulator {
             Patient.TriageLevel.GREEN, 30.0,
             Patient.TriageLevel.BLUE, 10.0
         );
+        this.treatmentTimeSamplers = exponentialSamplers(avgTreatmentTimes);
+        this.patientGenerator = new PatientGenerator(
+            streams, new CTAS(), new TreatmentTimeSampler(avgTreatmentTimes, 0.25), 5, 99);
+    }
+
+    private static Map<Patient.TriageLevel, ExponentialSampler> exponentialSamplers(
+            Map<Patient.TriageLevel, Double> means) {
+        Map<Patient.TriageLevel, ExponentialSampler> samplers = new EnumMap<>(Patient.TriageLevel.class);
+        means.forEach((level, mean) -> samplers.put(level, new ExponentialSampler(mean)));
+        return samplers;
     }
 
     /**
@@ -143,6 +169,8 @@ public class PoissonSimulator {
         log.log(Level.INFO, "Starting ER simulation @ {0}", currentTime);
 
         data = new int[5][(int) simulationDuration.toHours()];
+        arrivalIntensities = ArrivalIntensityTable.forCalendar(
+            arrivalFunction, currentTime, (int) simulationDuration.toHours());
         while (currentTime.isBefore(endTime)) {
             processHour();
             deltaHours++;
@@ -168,7 +196,7 @@ public class PoissonSimulator {
         data[1][deltaHours] = newPatientCount;
 
         for (int i = 0; i < newPatientCount; i++) {
-            Patient patient = generateRandomPatient();
+            Patient patient = patientGenerator.generate(0);
             boolean admitted = er.addPatient(patient);
             if (!admitted) {
                 rejectedPatients++;
@@ -223,94 +251,14 @@ public class PoissonSimulator {
 
     /**
      * Computes the number of new patient arrivals in the current hour using a
-     * Poisson distribution adjusted for seasonality (monthly), weekday factors,
-     * and hourly factors.
+     * Poisson distribution whose mean comes from the scenario's tabulated
+     * intensities (monthly seasonality, weekday factors and hourly factors).
      *
      * @return Number of new arrivals this hour.
      */
     private int generatePatientArrivals() {
-        // Factors for each day of week (Monday = index 1)
-        double[] weekdayFactors = {
-            0.8647, 1.1324, 1.0294, 1.0294, 1.0294, 1.0088, 0.9059
-        };
-        // Hourly multipliers for all 24 hours
-        double[] hourFactors = {
-            0.5236, 0.48,    0.4364, 0.3927, 0.3927, 0.3927, 0.3927, 0.5236,
-            0.96,   1.5273,  1.7455, 1.6582, 1.44,   1.3091, 1.6582, 1.3964,
-            1.1782, 1.1782,  1.1782, 1.1782, 1.1782, 1.1782, 0.96,   0.7418
-        };
-
-        int hour = currentTime.getHour();
-        int dayOfWeek = currentTime.getDayOfWeek().getValue();
-        int month = currentTime.getMonthValue();
-
-        // Set 't' argument to current month for seasonal function
-        t.setArgumentValue(month);
-        double averageDailyRate = arrivalExpression.calculate();
-        double weekdayRate = averageDailyRate * weekdayFactors[dayOfWeek - 1];
-        double hourlyRate = (weekdayRate / 24) * hourFactors[hour];
-
-        PoissonDistribution distribution = new PoissonDistribution(hourlyRate);
-        return distribution.sample();
-    }
-
-    /**
-     * Samples a diagnosis index (1–17) based on predefined probabilities.
-     *
-     * @return Diagnosis code (1‐based index).
-     */
-    private int generateDiagnosis() {
-        double[] diagnosisProbs = {
-            3.72908417e-02, 3.45021445e-02, 6.44438692e-04, 1.42655116e-01,
-            4.82845207e-03, 2.06028792e-01, 4.42272662e-02, 1.19613046e-02,
-            6.28956682e-06, 9.97375315e-02, 2.83615920e-02, 7.33431225e-02,
-            1.14778789e-01, 4.28604950e-02, 4.97795023e-02, 4.95869448e-02,
-            5.94073777e-02
-        };
-        double r = random.nextDouble();
-        double cumulative = 0.0;
-        for (int i = 0; i < diagnosisProbs.length; i++) {
-            cumulative += diagnosisProbs[i];
-            if (r < cumulative) {
-                return i + 1;
-            }
-        }
-        // Fallback in case cumulative never exceeds r
-        return diagnosisProbs.length;
-    }
-
-    /**
-     * Generates a random {@link Patient} with:
-     * <ul>
-     *   <li>A unique UUID.</li>
-     *   <li>A synthetic name "PatientXXXX".</li>
-     *   <li>An age between 5 and 99.</li>
-     *   <li>A triage level classified by {@link MTS}.</li>
-     *   <li>A 5% chance to upgrade one triage level.</li>
-     * </ul>
-     *
-     * @return Newly created {@link Patient}.
-     */
-    private Patient generateRandomPatient() {
-        UUID id = UUID.randomUUID();
-        String name = "Patient" + Math.abs(id.hashCode() % 10000);
-        int age = 5 + random.nextInt(95);
-        int diagnosis = generateDiagnosis();
-        Patient.TriageLevel triageLevel = new CTAS().classify(diagnosis);
-
-        // 5% chance to escalate triage priority
-        if (random.nextDouble() < 0.05) {
-            switch (triageLevel) {
-                case BLUE -> triageLevel = Patient.TriageLevel.GREEN;
-                case GREEN -> triageLevel = Patient.TriageLevel.YELLOW;
-                case YELLOW -> triageLevel = Patient.TriageLevel.ORANGE;
-                case ORANGE -> triageLevel = Patient.TriageLevel.RED;
-                default -> {
-                    // RED remains RED
-                }
-            }
-        }
-        return new Patient(id, name, age, triageLevel, Duration.ZERO, Duration.ZERO);//zeros are here because Patient has been changed
+        double hourlyRate = arrivalIntensities.expectedArrivals(deltaHours);
+        return PoissonSampler.sample(hourlyRate, arrivalRandom);
     }
 
     /**
@@ -321,9 +269,7 @@ public class PoissonSimulator {
      * @return Sampled treatment duration in minutes.
      */
     private double getTreatmentTimeForPatient(Patient patient) {
-        double avgTime = avgTreatmentTimes.get(patient.getTriageLevel());
-        ExponentialDistribution distribution = new ExponentialDistribution(avgTime);
-        return distribution.sample();
+        return treatmentTimeSamplers.get(patient.getTriageLevel()).sample(treatmentRandom);
     }
 
     /**
@@ -0,0 +1,127 @@
+package simulation;
+
+import java.util.Arrays;
+
+/**
+ * A probe fed with individual observations, such as the wait time of each patient as treatment starts, and sampled
+ * as statistics over each interval: {@code name.count}, {@code name.mean}, {@code name.max} or a percentile such as
+ * {@code name.p90}.
+ * <p>
+ * Observations are only kept while a subscription reads the distribution, and {@link #record(double)} returns
+ * immediately otherwise, so an unused distribution costs one field read per observation.
+ * </p>
+ */
+public final class ProbeDistribution {
+    private static final Window[] NO_WINDOWS = new Window[0];
+
+    private final String name;
+    private Window[] windows = NO_WINDOWS; // one per subscription reading this distribution
+
+    ProbeDistribution(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Records an observation.
+     *
+     * @param value The observed value.
+     */
+    public void record(double value) {
+        Window[] active = windows;
+        for (int i = 0; i < active.length; i++) {
+            active[i].add(value);
+        }
+    }
+
+    /**
+     * @return {@code true} if any subscription reads this distribution.
+     */
+    public boolean isActive() {
+        return windows.length > 0;
+    }
+
+    void closeWindows() {
+        windows = NO_WINDOWS;
+    }
+
+    Window openWindow() {
+        Window window = new Window();
+        windows = Arrays.copyOf(windows, windows.length + 1);
+        windows[windows.length - 1] = window;
+        return window;
+    }
+
+    /**
+     * The observations of one subscription's current interval.
+     */
+    static final class Window {
+        private double[] values = new double[64];
+        private int count;
+        private boolean sorted = true;
+
+        void add(double value) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = value;
+            sorted = false;
+        }
+
+        int count() {
+            return count;
+        }
+
+        /**
+         * @return The mean of the window, or NaN if it is empty.
+         */
+        double mean() {
+            if (count == 0) {
+                return Double.NaN;
+            }
+            double sum = 0;
+            for (int i = 0; i < count; i++) {
+                sum += values[i];
+            }
+            return sum / count;
+        }
+
+        /**
+         * @return The largest value in the window, or NaN if it is empty.
+         */
+        double max() {
+            if (count == 0) {
+                return Double.NaN;
+            }
+            double max = values[0];
+            for (int i = 1; i < count; i++) {
+                max = Math.max(max, values[i]);
+            }
+            return max;
+        }
+
+        /**
+         * @param percentile A percentile between 0 and 100.
+         * @return The nearest-rank percentile of the window, or NaN if it is empty.
+         */
+        double percentile(double percentile) {
+            if (count == 0) {
+                return Double.NaN;
+            }
+            if (!sorted) {
+                Arrays.sort(values, 0, count);
+                sorted = true;
+            }
+            int rank = (int) Math.ceil(percentile / 100.0 * count);
+            return values[Math.max(0, Math.min(count, rank) - 1)];
+        }
+
+        void reset() {
+            count = 0;
+            sorted = true;
+        }
+    }
+}
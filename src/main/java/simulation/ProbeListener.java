@@ -0,0 +1,22 @@
+package simulation;
+
+/**
+ * Receives the samples of a {@link Probes} subscription.
+ */
+public interface ProbeListener {
+
+    /**
+     * Called once per sampling interval with the values of the subscribed probes, in subscription order.
+     *
+     * @param time   The sample time, in seconds since the start of the simulation. Gauges hold their value at this
+     *               time; counters and distributions cover the interval that ends at it.
+     * @param values The sampled values. The array is reused between calls, so copy it to keep it.
+     */
+    void onSample(long time, double[] values);
+
+    /**
+     * Called at checkpoints, such as the end of a scheduling cycle, to make the samples so far durable.
+     */
+    default void flush() {
+    }
+}
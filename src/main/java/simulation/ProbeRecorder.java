@@ -0,0 +1,85 @@
+package simulation;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps every sample of a {@link Probes} subscription in memory, one primitive column per probe, for the GUI and
+ * end-of-run summaries.
+ */
+public class ProbeRecorder implements ProbeListener {
+    private final List<String> names;
+    private long[] times = new long[256];
+    private double[][] columns;
+    private int size;
+
+    /**
+     * @param names The probe names of the subscription, in subscription order.
+     */
+    public ProbeRecorder(List<String> names) {
+        this.names = List.copyOf(names);
+        this.columns = new double[names.size()][times.length];
+    }
+
+    @Override
+    public void onSample(long time, double[] values) {
+        if (size == times.length) {
+            times = Arrays.copyOf(times, size * 2);
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = Arrays.copyOf(columns[i], size * 2);
+            }
+        }
+        times[size] = time;
+        for (int i = 0; i < values.length; i++) {
+            columns[i][size] = values[i];
+        }
+        size++;
+    }
+
+    /**
+     * @return The recorded probe names.
+     */
+    public List<String> getNames() {
+        return names;
+    }
+
+    /**
+     * @return The number of samples recorded.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param sample The sample index.
+     * @return The sample's time in seconds since the start of the simulation.
+     */
+    public long getTime(int sample) {
+        return times[sample];
+    }
+
+    /**
+     * @param sample The sample index.
+     * @param name   A recorded probe name.
+     * @return The probe's value in that sample.
+     */
+    public double get(int sample, String name) {
+        return columns[indexOf(name)][sample];
+    }
+
+    /**
+     * @param name A recorded probe name.
+     * @return A copy of all the probe's samples.
+     */
+    public double[] getSeries(String name) {
+        return Arrays.copyOf(columns[indexOf(name)], size);
+    }
+
+    private int indexOf(String name) {
+        int index = names.indexOf(name);
+        if (index < 0) {
+            throw new IllegalArgumentException("Probe not recorded: " + name);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,265 @@
+package simulation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.DoubleSupplier;
+
+/**
+ * The named metrics of a simulation and the subscriptions that sample them.
+ * <p>
+ * Components register probes by name when they are built:
+ * <ul>
+ *   <li>a <b>gauge</b> reads a current value, such as a queue length, when it is sampled;</li>
+ *   <li>a <b>counter</b> reads a running total and is sampled as its increase over each interval;</li>
+ *   <li>a <b>distribution</b> ({@link ProbeDistribution}) is fed individual observations and sampled as statistics
+ *       over each interval, named {@code name.count}, {@code name.mean}, {@code name.max} or {@code name.pNN}.</li>
+ * </ul>
+ * Consumers subscribe to a list of probe names at a sampling interval of their choosing. Gauges and counters are only
+ * read at sample times, and distributions only keep observations while subscribed, so a probe that nobody subscribed
+ * to costs nothing in the event loop. The engine calls {@link #advanceTo(long)} before processing events at a new
+ * time, which is a single comparison unless a sample is due.
+ * </p>
+ */
+public class Probes {
+    private final Map<String, DoubleSupplier> gauges = new LinkedHashMap<>();
+    private final Map<String, DoubleSupplier> counters = new LinkedHashMap<>();
+    private final Map<String, ProbeDistribution> distributions = new LinkedHashMap<>();
+    private final List<Subscription> subscriptions = new ArrayList<>();
+    private long nextSampleTime = Long.MAX_VALUE;
+
+    /**
+     * Registers a probe read as its current value.
+     *
+     * @param name   The probe name.
+     * @param source Reads the value.
+     */
+    public void gauge(String name, DoubleSupplier source) {
+        checkUnused(name);
+        gauges.put(name, source);
+    }
+
+    /**
+     * Registers a probe that reads a non-decreasing running total, sampled as its increase over each interval.
+     *
+     * @param name   The probe name.
+     * @param source Reads the running total.
+     */
+    public void counter(String name, DoubleSupplier source) {
+        checkUnused(name);
+        counters.put(name, source);
+    }
+
+    /**
+     * Registers a distribution probe.
+     *
+     * @param name The probe name, the prefix of its statistics' names.
+     * @return The handle to record observations with.
+     */
+    public ProbeDistribution distribution(String name) {
+        checkUnused(name);
+        ProbeDistribution distribution = new ProbeDistribution(name);
+        distributions.put(name, distribution);
+        return distribution;
+    }
+
+    /**
+     * @return The names of the registered gauges, counters and distributions.
+     */
+    public Set<String> getNames() {
+        Set<String> names = new LinkedHashSet<>(gauges.keySet());
+        names.addAll(counters.keySet());
+        names.addAll(distributions.keySet());
+        return Collections.unmodifiableSet(names);
+    }
+
+    /**
+     * Subscribes to a set of probes. The first sample is taken one interval after {@code startTime}.
+     *
+     * @param startTime    The simulation time the subscription starts at, in seconds.
+     * @param intervalSecs The sampling interval in seconds.
+     * @param names        The probes to sample, e.g. "waiting", "arrivals" or "waitTimeMins.p90".
+     * @param listener     Receives the samples.
+     * @throws IllegalArgumentException If a name does not match a registered probe, or the interval is not positive.
+     */
+    public void subscribe(long startTime, long intervalSecs, List<String> names, ProbeListener listener) {
+        if (intervalSecs <= 0) {
+            throw new IllegalArgumentException("Sampling interval must be positive: " + intervalSecs);
+        }
+        for (String name : names) {
+            resolvePercentile(name); // validates the name before any distribution starts keeping observations
+        }
+        Subscription subscription = new Subscription(startTime + intervalSecs, intervalSecs, names.size(), listener);
+        Map<ProbeDistribution, ProbeDistribution.Window> windows = new LinkedHashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            subscription.columns[i] = column(names.get(i), windows);
+        }
+        subscription.windows = windows.values().toArray(new ProbeDistribution.Window[0]);
+        subscription.resetCounters();
+        subscriptions.add(subscription);
+        nextSampleTime = Math.min(nextSampleTime, subscription.nextTime);
+    }
+
+    /**
+     * Removes all subscriptions.
+     */
+    public void unsubscribeAll() {
+        subscriptions.clear();
+        for (ProbeDistribution distribution : distributions.values()) {
+            distribution.closeWindows();
+        }
+        nextSampleTime = Long.MAX_VALUE;
+    }
+
+    /**
+     * Takes every sample due at or before the given time. The engine calls this before processing events at that
+     * time, so the samples see the state up to, but not including, those events.
+     *
+     * @param time The simulation time in seconds.
+     */
+    public void advanceTo(long time) {
+        while (nextSampleTime <= time) {
+            long sampleTime = nextSampleTime;
+            long next = Long.MAX_VALUE;
+            for (Subscription subscription : subscriptions) {
+                if (subscription.nextTime == sampleTime) {
+                    subscription.sample(sampleTime);
+                    subscription.nextTime += subscription.interval;
+                }
+                next = Math.min(next, subscription.nextTime);
+            }
+            nextSampleTime = next;
+        }
+    }
+
+    /**
+     * @return The time of the next due sample, or {@link Long#MAX_VALUE} if nothing is subscribed.
+     */
+    public long getNextSampleTime() {
+        return nextSampleTime;
+    }
+
+    private Column column(String name, Map<ProbeDistribution, ProbeDistribution.Window> windows) {
+        DoubleSupplier gauge = gauges.get(name);
+        if (gauge != null) {
+            return new Column(gauge, false);
+        }
+        DoubleSupplier counter = counters.get(name);
+        if (counter != null) {
+            return new Column(counter, true);
+        }
+        int dot = name.lastIndexOf('.');
+        ProbeDistribution distribution = distributions.get(name.substring(0, dot));
+        ProbeDistribution.Window window = windows.computeIfAbsent(distribution, ProbeDistribution::openWindow);
+        switch (name.substring(dot + 1)) {
+            case "count":
+                return new Column(window::count, false);
+            case "mean":
+                return new Column(window::mean, false);
+            case "max":
+                return new Column(window::max, false);
+            default:
+                double percentile = resolvePercentile(name);
+                return new Column(() -> window.percentile(percentile), false);
+        }
+    }
+
+    /**
+     * Checks that a name refers to a registered probe.
+     *
+     * @return The percentile if the name is a distribution percentile such as "waitTimeMins.p90", NaN otherwise.
+     * @throws IllegalArgumentException If the name does not refer to a registered probe.
+     */
+    private double resolvePercentile(String name) {
+        if (gauges.containsKey(name) || counters.containsKey(name)) {
+            return Double.NaN;
+        }
+        int dot = name.lastIndexOf('.');
+        ProbeDistribution distribution = dot < 0 ? null : distributions.get(name.substring(0, dot));
+        if (distribution == null) {
+            throw new IllegalArgumentException("Unknown probe: " + name);
+        }
+        String statistic = name.substring(dot + 1);
+        if (statistic.equals("count") || statistic.equals("mean") || statistic.equals("max")) {
+            return Double.NaN;
+        }
+        if (statistic.startsWith("p")) {
+            try {
+                double percentile = Double.parseDouble(statistic.substring(1));
+                if (percentile > 0 && percentile <= 100) {
+                    return percentile;
+                }
+            } catch (NumberFormatException e) {
+                // Reported below
+            }
+        }
+        throw new IllegalArgumentException("Unknown statistic '" + statistic + "' of distribution " +
+                distribution.getName());
+    }
+
+    private void checkUnused(String name) {
+        if (gauges.containsKey(name) || counters.containsKey(name) || distributions.containsKey(name)) {
+            throw new IllegalArgumentException("Probe already registered: " + name);
+        }
+    }
+
+    /**
+     * A subscribed probe: its source and, for counters, the total at the previous sample.
+     */
+    private static final class Column {
+        private final DoubleSupplier source;
+        private final boolean counter;
+        private double lastTotal;
+
+        Column(DoubleSupplier source, boolean counter) {
+            this.source = source;
+            this.counter = counter;
+        }
+    }
+
+    private static final class Subscription {
+        private long nextTime;
+        private final long interval;
+        private final Column[] columns;
+        private final double[] values;
+        private final ProbeListener listener;
+        private ProbeDistribution.Window[] windows;
+
+        Subscription(long nextTime, long interval, int columns, ProbeListener listener) {
+            this.nextTime = nextTime;
+            this.interval = interval;
+            this.columns = new Column[columns];
+            this.values = new double[columns];
+            this.listener = listener;
+        }
+
+        void resetCounters() {
+            for (Column column : columns) {
+                if (column.counter) {
+                    column.lastTotal = column.source.getAsDouble();
+                }
+            }
+        }
+
+        void sample(long time) {
+            for (int i = 0; i < columns.length; i++) {
+                Column column = columns[i];
+                double value = column.source.getAsDouble();
+                if (column.counter) {
+                    values[i] = value - column.lastTotal;
+                    column.lastTotal = value;
+                } else {
+                    values[i] = value;
+                }
+            }
+            for (ProbeDistribution.Window window : windows) {
+                window.reset();
+            }
+            listener.onSample(time, values);
+        }
+    }
+}
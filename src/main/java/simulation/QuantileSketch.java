@@ -0,0 +1,184 @@
+package simulation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A streaming quantile estimate of non-negative values with a fixed relative error, in the style of DDSketch.
+ * <p>
+ * Positive values are counted in logarithmic buckets whose bounds grow by a factor of (1 + a) / (1 - a), so any
+ * quantile is returned within a relative error a of the true value. Zeros, which are common for wait times, have a
+ * bucket of their own. The buckets only span the orders of magnitude actually seen, which for simulation times in
+ * minutes is a few hundred counters however many values are added. Adding a value is O(1) and sketches with the same
+ * accuracy can be merged.
+ * </p>
+ */
+public final class QuantileSketch {
+    /** The default relative accuracy, 1%. */
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+    private static final double MIN_POSITIVE = 1e-9; // smaller values are counted as zero
+
+    private final double relativeAccuracy;
+    private final double logGamma;
+    private long[] counts = new long[0]; // counts[i] is bucket minIndex + i
+    private int minIndex;
+    private long zeroCount;
+    private long count;
+
+    public QuantileSketch() {
+        this(DEFAULT_RELATIVE_ACCURACY);
+    }
+
+    /**
+     * @param relativeAccuracy The relative error of the quantiles, between 0 and 1 exclusive.
+     */
+    public QuantileSketch(double relativeAccuracy) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("Relative accuracy must be between 0 and 1: " + relativeAccuracy);
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.logGamma = Math.log((1 + relativeAccuracy) / (1 - relativeAccuracy));
+    }
+
+    /**
+     * Adds a value. Negative values are counted as zero.
+     *
+     * @param value The value.
+     */
+    public void add(double value) {
+        count++;
+        if (!(value > MIN_POSITIVE)) {
+            zeroCount++;
+            return;
+        }
+        int index = (int) Math.ceil(Math.log(value) / logGamma);
+        ensureCovers(index, index);
+        counts[index - minIndex]++;
+    }
+
+    /**
+     * Adds all values of another sketch to this one.
+     *
+     * @param other A sketch with the same relative accuracy.
+     */
+    public void merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches of different accuracy");
+        }
+        if (other.counts.length > 0) {
+            ensureCovers(other.minIndex, other.minIndex + other.counts.length - 1);
+            for (int i = 0; i < other.counts.length; i++) {
+                counts[other.minIndex + i - minIndex] += other.counts[i];
+            }
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+    }
+
+    /**
+     * @param quantile A quantile between 0 and 1, e.g. 0.9 for the 90th percentile.
+     * @return The estimated quantile, or NaN if the sketch is empty.
+     */
+    public double quantile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1: " + quantile);
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) (quantile * (count - 1));
+        long seen = zeroCount;
+        if (rank < seen) {
+            return 0.0;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (rank < seen) {
+                // The bucket's midpoint in relative terms, within relativeAccuracy of every value in it
+                return 2 * Math.exp((minIndex + i) * logGamma) / (1 + Math.exp(logGamma));
+            }
+        }
+        throw new IllegalStateException("Sketch counts are inconsistent");
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Removes all values, keeping the buckets allocated for the range seen so far.
+     */
+    public void clear() {
+        Arrays.fill(counts, 0);
+        zeroCount = 0;
+        count = 0;
+    }
+
+    /**
+     * Writes the sketch, e.g. to send it to another process that merges it, see {@link #readFrom(DataInput)}.
+     *
+     * @param out The output.
+     * @throws IOException If the output fails.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeDouble(relativeAccuracy);
+        out.writeLong(count);
+        out.writeLong(zeroCount);
+        out.writeInt(minIndex);
+        out.writeInt(counts.length);
+        for (long bucket : counts) {
+            out.writeLong(bucket);
+        }
+    }
+
+    /**
+     * Reads a sketch written by {@link #writeTo(DataOutput)}.
+     *
+     * @param in The input.
+     * @return The sketch.
+     * @throws IOException If the input fails.
+     */
+    public static QuantileSketch readFrom(DataInput in) throws IOException {
+        QuantileSketch sketch = new QuantileSketch(in.readDouble());
+        sketch.count = in.readLong();
+        sketch.zeroCount = in.readLong();
+        sketch.minIndex = in.readInt();
+        sketch.counts = new long[in.readInt()];
+        for (int i = 0; i < sketch.counts.length; i++) {
+            sketch.counts[i] = in.readLong();
+        }
+        return sketch;
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    private void ensureCovers(int low, int high) {
+        if (counts.length == 0) {
+            minIndex = low;
+            counts = new long[high - low + 1];
+            return;
+        }
+        int maxIndex = minIndex + counts.length - 1;
+        if (low >= minIndex && high <= maxIndex) {
+            return;
+        }
+        int newMin = Math.min(low, minIndex);
+        int newMax = Math.max(high, maxIndex);
+        // Grow by at least half again, so a slowly widening range is not copied on every new bucket
+        int slack = counts.length / 2;
+        if (newMin < minIndex) {
+            newMin = Math.min(newMin, minIndex - slack);
+        }
+        if (newMax > maxIndex) {
+            newMax = Math.max(newMax, maxIndex + slack);
+        }
+        long[] grown = new long[newMax - newMin + 1];
+        System.arraycopy(counts, 0, grown, minIndex - newMin, counts.length);
+        counts = grown;
+        minIndex = newMin;
+    }
+}
@@ -0,0 +1,87 @@
+package simulation;
+
+import java.util.SplittableRandom;
+
+/**
+ * Independent random number streams for one simulation run, all derived from a single seed.
+ * <p>
+ * Each source of randomness draws from its own stream, so changing how one of them is used (for example switching
+ * triage classifier, which changes treatment lengths but not the number of arrivals) leaves the others untouched.
+ * Two runs with the same seed therefore see identical arrival streams and per-patient draws, which is what makes
+ * common-random-numbers comparisons between classifiers or staffing levels work.
+ * </p>
+ */
+public final class RandomStreams {
+    /**
+     * The sources of randomness in a run. Streams are derived from the seed and the stream's position here, so new
+     * streams must be added at the end to keep existing seeds reproducible.
+     */
+    public enum Stream {
+        ARRIVALS,        // interarrival draws
+        TRIAGE,          // diagnosis and escalation, one draw per patient
+        TREATMENT_TIMES, // treatment length, one Gaussian per patient
+        DEMOGRAPHICS,    // patient age
+        PATIENCE,        // time a waiting patient stays before leaving without being seen
+        DETERIORATION,   // time until a waiting patient deteriorates to the next triage level
+        PATIENT_SAMPLE   // which treated patients are kept, see PatientSample
+    }
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final long REPLICATION_SALT = 0x5851F42D4C957F2DL;
+
+    private final long seed;
+    private final SplittableRandom[] streams;
+
+    /**
+     * @param seed The run's seed.
+     */
+    public RandomStreams(long seed) {
+        this.seed = seed;
+        Stream[] kinds = Stream.values();
+        this.streams = new SplittableRandom[kinds.length];
+        for (Stream kind : kinds) {
+            streams[kind.ordinal()] = new SplittableRandom(mix(seed + (kind.ordinal() + 1) * GOLDEN_GAMMA));
+        }
+    }
+
+    /**
+     * @return Streams for a fresh, randomly chosen seed. The seed is available from {@link #getSeed()} so the run can
+     *         be reproduced.
+     */
+    public static RandomStreams withRandomSeed() {
+        return new RandomStreams(new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Derives the seed of one replication in a batch. Replication i gets the same seed in every configuration of an
+     * experiment that shares the base seed, so each configuration is compared on the same random numbers.
+     *
+     * @param baseSeed    The experiment's seed.
+     * @param replication The replication index, starting at 0.
+     * @return The replication's seed.
+     */
+    public static long replicationSeed(long baseSeed, int replication) {
+        return mix(baseSeed ^ mix(REPLICATION_SALT + replication * GOLDEN_GAMMA));
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @param stream The source of randomness.
+     * @return The generator for that source.
+     */
+    public SplittableRandom get(Stream stream) {
+        return streams[stream.ordinal()];
+    }
+
+    /**
+     * SplitMix64 finalizer, used to turn related seeds into unrelated ones.
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
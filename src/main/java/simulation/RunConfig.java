@@ -0,0 +1,256 @@
+package simulation;
+
+import scheduling.OptimizedScheduleOutput;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Function;
+
+/**
+ * The configuration of a simulation run: a read-only snapshot of config.json, possibly with some values overridden,
+ * together with what every run of that configuration derives from it, prepared once: the staff counts and
+ * requirements per category, the per-level timing arrays, the treatment time sampler, the arrival intensity
+ * tables and the staff schedules.
+ * <p>
+ * Instances are immutable and thread-safe, and are cached by the content of their configuration, so concurrent and
+ * repeated runs of the same configuration share one. Simulations are given theirs explicitly, e.g.
+ * {@code new DES(seed, RunConfig.defaults().withOverrides(Map.of("ERTreatmentRooms", 30)))}.
+ * </p>
+ */
+public final class RunConfig {
+    /** The hyperparameters of the web interface and the config.json variables they set. */
+    public static final Map<String, String> HYPERPARAMETERS = Map.of(
+            "interarrivalTime", "interarrivalTimeMins",
+            "treatmentCapacity", "ERTreatmentRooms",
+            "waitingCapacity", "ERCapacity");
+    private static final int CACHE_SIZE = 256;
+    private static final double SECONDS_PER_MINUTE = 60.0;
+    private static final double RELATIVE_TREATMENT_TIME_STD_DEV = 0.25;
+
+    // The most recently used configurations by content hash; a hit is confirmed on the full content
+    private static final Map<Long, RunConfig> CACHE = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, RunConfig> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    private static RunConfig defaults;
+
+    private final Config config;
+    private final byte[] canonicalJson;
+    private final long contentHash;
+    private final int[] staffCounts;         // indexed by StaffCategory ordinal
+    private final int[][] staffRequirements; // [triage level ordinal][staff category ordinal]
+    private final Map<Patient.TriageLevel, Double> avgTreatmentTimes;
+    private final TreatmentTimeSampler treatmentTimeSampler;
+    private final double[] meanPatienceSecs;      // per triage level ordinal
+    private final double[] meanDeteriorationSecs; // per triage level ordinal
+    private final double[] priorityAgingMins;     // per triage level ordinal
+    private final Map<String, ArrivalIntensityTable> arrivalTables = new ConcurrentHashMap<>();
+    private final Map<Duration, OptimizedScheduleOutput[]> schedules = new ConcurrentHashMap<>();
+
+    private RunConfig(Config config, byte[] canonicalJson, long contentHash) {
+        this.config = config;
+        this.canonicalJson = canonicalJson;
+        this.contentHash = contentHash;
+        this.staffCounts = EmergencyRoom.staffCounts(config);
+        this.staffRequirements = EmergencyRoom.staffRequirements(config);
+        Map<Patient.TriageLevel, Double> treatmentTimes = new EnumMap<>(Patient.TriageLevel.class);
+        for (Patient.TriageLevel level : Patient.TriageLevel.values()) {
+            treatmentTimes.put(level, config.getAvgTreatmentTimesMins().get(level.name()));
+        }
+        this.avgTreatmentTimes = Collections.unmodifiableMap(treatmentTimes);
+        // Treatment times follow a normal distribution, shape varies based on triage level.
+        this.treatmentTimeSampler = new TreatmentTimeSampler(avgTreatmentTimes, RELATIVE_TREATMENT_TIME_STD_DEV);
+        this.meanPatienceSecs = perLevel(config.getRenegingPatienceMins(), SECONDS_PER_MINUTE);
+        this.meanDeteriorationSecs = perLevel(config.getDeteriorationMeanMins(), SECONDS_PER_MINUTE);
+        this.priorityAgingMins = perLevel(config.getPriorityAgingMins(), 1);
+    }
+
+    /**
+     * @return The configuration of config.json, without overrides.
+     * @throws IOException If config.json cannot be read or parsed.
+     */
+    public static synchronized RunConfig defaults() throws IOException {
+        if (defaults == null) {
+            defaults = of(Config.getInstance());
+        }
+        return defaults;
+    }
+
+    /**
+     * Returns the run configuration of a configuration, the cached one if the same configuration was used recently.
+     *
+     * @param config The configuration.
+     * @return Its run configuration.
+     */
+    public static RunConfig of(Config config) {
+        byte[] json = RunFile.canonicalJson(config);
+        long hash = RunFile.hash(json);
+        synchronized (CACHE) {
+            RunConfig cached = CACHE.get(hash);
+            if (cached != null && Arrays.equals(cached.canonicalJson, json)) {
+                return cached;
+            }
+            RunConfig created = new RunConfig(config, json, hash);
+            CACHE.put(hash, created);
+            return created;
+        }
+    }
+
+    /**
+     * Returns this configuration with some values replaced.
+     *
+     * @param overrides New values by config.json name, see {@link Config#withOverrides(Map)}.
+     * @return The run configuration of the result.
+     * @throws IllegalArgumentException If a name is not in config.json or a value does not fit its variable.
+     */
+    public RunConfig withOverrides(Map<String, Object> overrides) {
+        return overrides.isEmpty() ? this : of(config.withOverrides(overrides));
+    }
+
+    /**
+     * Returns this configuration with the hyperparameters of a web request applied. Hyperparameters are named as in
+     * {@link #HYPERPARAMETERS}; other names are taken as config.json names.
+     *
+     * @param hyperparameters The hyperparameters.
+     * @return The run configuration of the result.
+     * @throws IllegalArgumentException If a name is unknown or a value does not fit its variable.
+     */
+    public RunConfig withHyperparameters(Map<String, Object> hyperparameters) {
+        Map<String, Object> overrides = new HashMap<>();
+        for (Map.Entry<String, Object> hyperparameter : hyperparameters.entrySet()) {
+            overrides.put(HYPERPARAMETERS.getOrDefault(hyperparameter.getKey(), hyperparameter.getKey()),
+                    hyperparameter.getValue());
+        }
+        return withOverrides(overrides);
+    }
+
+    /**
+     * @return The configuration. It is read-only.
+     */
+    public Config getConfig() {
+        return config;
+    }
+
+    /**
+     * @return A 64-bit hash of the configuration's content, see {@link RunFile#configHash(Config)}.
+     */
+    public long getContentHash() {
+        return contentHash;
+    }
+
+    /**
+     * @return The number of staff of each category, indexed by {@link StaffCategory} ordinal. A new array the caller
+     * may change.
+     */
+    public int[] getStaffCounts() {
+        return staffCounts.clone();
+    }
+
+    /**
+     * @return The average treatment time in minutes of each triage level.
+     */
+    public Map<Patient.TriageLevel, Double> getAvgTreatmentTimes() {
+        return avgTreatmentTimes;
+    }
+
+    /**
+     * @return The treatment time sampler of the configuration; it holds no state of its own and can be shared.
+     */
+    public TreatmentTimeSampler getTreatmentTimeSampler() {
+        return treatmentTimeSampler;
+    }
+
+    /**
+     * Returns a compiled arrival function of the configuration.
+     *
+     * @param name A key of config.json's patientArrivalFunctions.
+     * @return The function.
+     * @throws IllegalArgumentException If there is no such arrival function.
+     */
+    public DoubleUnaryOperator arrivalFunction(String name) {
+        String expression = config.getPatientArrivalFunctions().get(name);
+        if (expression == null) {
+            throw new IllegalArgumentException("Arrival function '" + name + "' not found in config");
+        }
+        return ArrivalFunctionCompiler.compile(expression);
+    }
+
+    /**
+     * Returns the arrival intensities of a DES run, tabulated on first use.
+     *
+     * @param arrivalFunction      A key of config.json's patientArrivalFunctions.
+     * @param interarrivalTimeMins The mean interarrival time in minutes when the arrival function is 1.
+     * @param hours                The number of hours to tabulate.
+     * @return The table, see {@link ArrivalIntensityTable#forInterarrivalTime(DoubleUnaryOperator, double, int)}.
+     * @throws IllegalArgumentException If there is no such arrival function.
+     */
+    public ArrivalIntensityTable arrivalTable(String arrivalFunction, double interarrivalTimeMins, int hours) {
+        String key = arrivalFunction + '/' + interarrivalTimeMins + '/' + hours;
+        ArrivalIntensityTable table = arrivalTables.get(key);
+        if (table == null) {
+            table = ArrivalIntensityTable.forInterarrivalTime(arrivalFunction(arrivalFunction), interarrivalTimeMins, hours);
+            ArrivalIntensityTable raced = arrivalTables.putIfAbsent(key, table);
+            if (raced != null) {
+                table = raced;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Returns the nurse, physician and resident schedules of a scheduling cycle without performance feedback, which
+     * depend on nothing but the configuration, solved on first use. Runs that ask while they are being solved wait
+     * for them. The array is shared and must not be changed.
+     *
+     * @param period The scheduling period.
+     * @param solver Solves the schedules of a period, in that order.
+     * @return The schedules.
+     */
+    OptimizedScheduleOutput[] schedules(Duration period, Function<Duration, OptimizedScheduleOutput[]> solver) {
+        return schedules.computeIfAbsent(period, solver);
+    }
+
+    // The arrays below are shared by every run of the configuration and must not be changed
+
+    int[][] staffRequirements() {
+        return staffRequirements;
+    }
+
+    double[] meanPatienceSecs() {
+        return meanPatienceSecs;
+    }
+
+    double[] meanDeteriorationSecs() {
+        return meanDeteriorationSecs;
+    }
+
+    double[] priorityAgingMins() {
+        return priorityAgingMins;
+    }
+
+    /**
+     * Converts a per-triage-level map from config.json to an array indexed by triage level ordinal. Missing levels,
+     * or a missing map, count as 0, and negative values are clamped to 0.
+     * @param values the values per triage level name
+     * @param scale the factor to multiply each value by, e.g. to convert minutes to seconds
+     * @return the scaled values per triage level ordinal
+     */
+    private static double[] perLevel(Map<String, Double> values, double scale){
+        double[] result = new double[Patient.TriageLevel.values().length];
+        for (Patient.TriageLevel level : Patient.TriageLevel.values()) {
+            Double value = values == null ? null : values.get(level.name());
+            result[level.ordinal()] = value == null ? 0.0 : Math.max(0.0, value) * scale;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,87 @@
+package simulation;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.nio.ByteOrder;
+
+/**
+ * The columnar binary run-output format (".erun"), written by {@link RunFileWriter} and read by
+ * {@link RunFileReader}.
+ * <p>
+ * All values are little-endian. The file is a header followed by one block per column:
+ * <pre>
+ *   int    magic ("ERUN")       short version        short columnCount
+ *   long   configHash           long  seed
+ *   long   startTime            long  intervalSecs   (seconds; the sampling grid of the rows)
+ *   int    rowCapacity          int   rowCount
+ *   columnCount x { byte type, short nameLength, nameLength bytes of UTF-8 name }
+ *   padding to a multiple of 8
+ *   columnCount x { rowCapacity values of the column's type, padded to a multiple of 8 bytes }
+ * </pre>
+ * Every column block has room for {@code rowCapacity} rows, so a writer can fill rows in place as samples arrive,
+ * and the first {@code rowCount} of them are valid. A run that stopped early is still readable.
+ * </p>
+ */
+public final class RunFile {
+    static final int MAGIC = 0x4E555245; // "ERUN" in little-endian byte order
+    static final short VERSION = 1;
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    static final int ROW_COUNT_OFFSET = 4 + 2 + 2 + 8 * 4 + 4;
+    static final int FIXED_HEADER_BYTES = ROW_COUNT_OFFSET + 4;
+    public static final String EXTENSION = ".erun";
+
+    /**
+     * The primitive type of a column.
+     */
+    public enum ColumnType {
+        INT(4),
+        DOUBLE(8);
+
+        final int width;
+
+        ColumnType(int width) {
+            this.width = width;
+        }
+    }
+
+    private RunFile() {}
+
+    /**
+     * Hashes a configuration, so that runs can be matched to the configuration that produced them.
+     *
+     * @param config The configuration.
+     * @return A 64-bit FNV-1a hash of the configuration's canonical JSON form.
+     */
+    public static long configHash(Config config) {
+        return hash(canonicalJson(config));
+    }
+
+    /**
+     * @param config A configuration.
+     * @return Its JSON form with map entries in key order, equal for equal configurations.
+     */
+    static byte[] canonicalJson(Config config) {
+        ObjectMapper mapper = new ObjectMapper()
+                .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+        try {
+            return mapper.writeValueAsBytes(config);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the configuration", e);
+        }
+    }
+
+    static long hash(byte[] json) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : json) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    static long blockBytes(ColumnType type, int rows) {
+        return ((long) type.width * rows + 7) & ~7L;
+    }
+}
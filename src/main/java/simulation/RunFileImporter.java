@@ -0,0 +1,85 @@
+package simulation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Converts hourly CSV logs, such as those under raw_data/, into {@link RunFile}s.
+ * <p>
+ * Usage: {@code RunFileImporter [source directory] [target directory]}. Every .csv file under the source directory
+ * (raw_data by default) is converted to a .erun file at the same relative path under the target directory (the
+ * source directory by default). Columns holding only whole numbers become INT columns and the others DOUBLE columns.
+ * The logs do not record their seed or configuration, so both are stored as 0.
+ * </p>
+ */
+public class RunFileImporter {
+    private static final long SECONDS_PER_HOUR = 3600;
+
+    public static void main(String[] args) throws IOException {
+        Path source = Paths.get(args.length > 0 ? args[0] : "raw_data");
+        Path target = args.length > 1 ? Paths.get(args[1]) : source;
+        List<Path> logs;
+        try (Stream<Path> files = Files.walk(source)) {
+            logs = files.filter(file -> file.toString().endsWith(".csv")).sorted().collect(Collectors.toList());
+        }
+        for (Path log : logs) {
+            Path converted = target.resolve(source.relativize(log).toString().replaceAll("\\.csv$", RunFile.EXTENSION));
+            int rows = convert(log, converted);
+            System.out.println("Imported " + log + " -> " + converted + " (" + rows + " rows)");
+        }
+        System.out.println("Imported " + logs.size() + " logs");
+    }
+
+    /**
+     * Converts one CSV log.
+     *
+     * @param csv    The CSV file, with a header row.
+     * @param target The run file to write.
+     * @return The number of rows converted.
+     * @throws IOException If the CSV cannot be read or the run file cannot be written.
+     */
+    public static int convert(Path csv, Path target) throws IOException {
+        List<String> lines = Files.readAllLines(csv);
+        if (lines.isEmpty()) {
+            throw new IOException(csv + " is empty");
+        }
+        List<String> names = Arrays.asList(lines.get(0).split(","));
+        List<double[]> rows = new ArrayList<>(lines.size() - 1);
+        boolean[] fractional = new boolean[names.size()];
+        for (int line = 1; line < lines.size(); line++) {
+            if (lines.get(line).isBlank()) {
+                continue;
+            }
+            String[] fields = lines.get(line).split(",");
+            if (fields.length != names.size()) {
+                throw new IOException(csv + ":" + (line + 1) + " has " + fields.length + " fields, expected "
+                        + names.size());
+            }
+            double[] row = new double[fields.length];
+            for (int i = 0; i < fields.length; i++) {
+                row[i] = Double.parseDouble(fields[i]);
+                fractional[i] |= row[i] != Math.rint(row[i]) || Math.abs(row[i]) > Integer.MAX_VALUE;
+            }
+            rows.add(row);
+        }
+
+        List<RunFile.ColumnType> types = new ArrayList<>(names.size());
+        for (boolean isFractional : fractional) {
+            types.add(isFractional ? RunFile.ColumnType.DOUBLE : RunFile.ColumnType.INT);
+        }
+        try (RunFileWriter writer = new RunFileWriter(target.toFile(), names, types, 0, 0, 0, SECONDS_PER_HOUR,
+                rows.size())) {
+            for (double[] row : rows) {
+                writer.appendRow(row);
+            }
+        }
+        return rows.size();
+    }
+}
@@ -0,0 +1,180 @@
+package simulation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads a {@link RunFile} by memory-mapping it. Opening a run only parses the header; the columns are views onto the
+ * mapped file, so nothing is copied until a value is read.
+ */
+public class RunFileReader {
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final long configHash;
+    private final long seed;
+    private final long startTime;
+    private final long intervalSecs;
+    private final int rowCount;
+    private final List<String> names;
+    private final RunFile.ColumnType[] types;
+    private final int[] columnOffsets;
+
+    private RunFileReader(Path path, MappedByteBuffer buffer) throws IOException {
+        this.path = path;
+        this.buffer = buffer;
+        buffer.order(RunFile.ORDER);
+        if (buffer.capacity() < RunFile.FIXED_HEADER_BYTES || buffer.getInt() != RunFile.MAGIC) {
+            throw new IOException(path + " is not a run file");
+        }
+        short version = buffer.getShort();
+        if (version != RunFile.VERSION) {
+            throw new IOException(path + " has unsupported run file version " + version);
+        }
+        int columnCount = buffer.getShort();
+        this.configHash = buffer.getLong();
+        this.seed = buffer.getLong();
+        this.startTime = buffer.getLong();
+        this.intervalSecs = buffer.getLong();
+        int rowCapacity = buffer.getInt();
+        this.rowCount = buffer.getInt();
+
+        String[] columnNames = new String[columnCount];
+        this.types = new RunFile.ColumnType[columnCount];
+        RunFile.ColumnType[] allTypes = RunFile.ColumnType.values();
+        for (int i = 0; i < columnCount; i++) {
+            types[i] = allTypes[buffer.get()];
+            byte[] name = new byte[buffer.getShort()];
+            buffer.get(name);
+            columnNames[i] = new String(name, StandardCharsets.UTF_8);
+        }
+        this.names = List.of(columnNames);
+
+        this.columnOffsets = new int[columnCount];
+        long offset = (buffer.position() + 7) & ~7L;
+        for (int i = 0; i < columnCount; i++) {
+            columnOffsets[i] = (int) offset;
+            offset += RunFile.blockBytes(types[i], rowCapacity);
+        }
+        if (offset > buffer.capacity() || rowCount > rowCapacity) {
+            throw new IOException(path + " is truncated");
+        }
+    }
+
+    /**
+     * Maps a run file.
+     *
+     * @param path The file.
+     * @return The reader.
+     * @throws IOException If the file cannot be read or is not a valid run file.
+     */
+    public static RunFileReader open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new RunFileReader(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getConfigHash() {
+        return configHash;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getIntervalSecs() {
+        return intervalSecs;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public List<String> getColumnNames() {
+        return names;
+    }
+
+    public RunFile.ColumnType getType(String name) {
+        return types[indexOf(name)];
+    }
+
+    /**
+     * @param name The name of an INT column.
+     * @return A read-only view of the column's rows.
+     */
+    public IntBuffer getInts(String name) {
+        return column(name, RunFile.ColumnType.INT).asIntBuffer();
+    }
+
+    /**
+     * @param name The name of a DOUBLE column.
+     * @return A read-only view of the column's rows.
+     */
+    public DoubleBuffer getDoubles(String name) {
+        return column(name, RunFile.ColumnType.DOUBLE).asDoubleBuffer();
+    }
+
+    /**
+     * @param row  A row index.
+     * @param name A column name.
+     * @return The value, whatever the column's type.
+     */
+    public double get(int row, String name) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + rowCount);
+        }
+        int column = indexOf(name);
+        int position = columnOffsets[column] + row * types[column].width;
+        return types[column] == RunFile.ColumnType.INT ? buffer.getInt(position) : buffer.getDouble(position);
+    }
+
+    /**
+     * @param name A column name.
+     * @return A copy of the column's rows, whatever its type.
+     */
+    public double[] getSeries(String name) {
+        double[] series = new double[rowCount];
+        if (types[indexOf(name)] == RunFile.ColumnType.INT) {
+            IntBuffer ints = getInts(name);
+            for (int i = 0; i < series.length; i++) {
+                series[i] = ints.get(i);
+            }
+        } else {
+            getDoubles(name).get(series);
+        }
+        return series;
+    }
+
+    private ByteBuffer column(String name, RunFile.ColumnType type) {
+        int column = indexOf(name);
+        if (types[column] != type) {
+            throw new IllegalArgumentException("Column " + name + " is " + types[column] + ", not " + type);
+        }
+        return buffer.slice(columnOffsets[column], rowCount * type.width).asReadOnlyBuffer().order(RunFile.ORDER);
+    }
+
+    private int indexOf(String name) {
+        int index = names.indexOf(name);
+        if (index < 0) {
+            throw new IllegalArgumentException("No column " + name + " in " + path + ", columns are "
+                    + Arrays.toString(names.toArray()));
+        }
+        return index;
+    }
+}
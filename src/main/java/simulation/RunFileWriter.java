@@ -0,0 +1,147 @@
+package simulation;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes a {@link RunFile}. The file is sized for its row capacity up front and memory-mapped, so each row is stored
+ * straight into its column blocks and nothing is buffered on the heap. The row count in the header is updated with
+ * every row, so a run that stops early leaves a valid file of the rows written so far.
+ * <p>
+ * As a {@link ProbeListener}, the first column receives the number of the interval the sample closes, counting from 1,
+ * and the other columns the subscribed probes, in the same layout as {@link CsvProbeWriter}.
+ * </p>
+ */
+public class RunFileWriter implements ProbeListener, Closeable {
+    private final File file;
+    private final RandomAccessFile raf;
+    private final MappedByteBuffer buffer;
+    private final RunFile.ColumnType[] types;
+    private final long[] columnOffsets;
+    private final long startTime;
+    private final long intervalSecs;
+    private final int rowCapacity;
+    private final double[] row;
+    private int rowCount;
+
+    /**
+     * Creates the file, and its directory if needed, and writes the header.
+     *
+     * @param file         The file to write.
+     * @param names        The column names.
+     * @param types        The column types, one per name.
+     * @param configHash   The hash of the configuration the run used, see {@link RunFile#configHash(Config)}.
+     * @param seed         The seed of the run.
+     * @param startTime    The time of the grid the rows are sampled on, in seconds.
+     * @param intervalSecs The sampling interval in seconds.
+     * @param rowCapacity  The most rows the file will hold.
+     * @throws IOException If the file cannot be created.
+     */
+    public RunFileWriter(File file, List<String> names, List<RunFile.ColumnType> types, long configHash, long seed,
+                         long startTime, long intervalSecs, int rowCapacity) throws IOException {
+        if (names.size() != types.size()) {
+            throw new IllegalArgumentException(names.size() + " column names but " + types.size() + " types");
+        }
+        long headerBytes = RunFile.FIXED_HEADER_BYTES;
+        byte[][] encodedNames = new byte[names.size()][];
+        for (int i = 0; i < encodedNames.length; i++) {
+            encodedNames[i] = names.get(i).getBytes(StandardCharsets.UTF_8);
+            headerBytes += 1 + 2 + encodedNames[i].length;
+        }
+        headerBytes = (headerBytes + 7) & ~7L;
+
+        this.types = types.toArray(new RunFile.ColumnType[0]);
+        this.columnOffsets = new long[this.types.length];
+        long size = headerBytes;
+        for (int i = 0; i < this.types.length; i++) {
+            columnOffsets[i] = size;
+            size += RunFile.blockBytes(this.types[i], rowCapacity);
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Run file too large: " + size + " bytes");
+        }
+
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (directory != null) {
+            directory.mkdirs();
+        }
+        this.file = file;
+        this.raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(size);
+            this.buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            raf.close();
+            throw e;
+        }
+        buffer.order(RunFile.ORDER);
+        buffer.putInt(RunFile.MAGIC).putShort(RunFile.VERSION).putShort((short) this.types.length)
+                .putLong(configHash).putLong(seed).putLong(startTime).putLong(intervalSecs)
+                .putInt(rowCapacity).putInt(0);
+        for (int i = 0; i < encodedNames.length; i++) {
+            buffer.put((byte) this.types[i].ordinal()).putShort((short) encodedNames[i].length).put(encodedNames[i]);
+        }
+        this.startTime = startTime;
+        this.intervalSecs = intervalSecs;
+        this.rowCapacity = rowCapacity;
+        this.row = new double[this.types.length];
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public void onSample(long time, double[] values) {
+        row[0] = (time - startTime) / intervalSecs;
+        System.arraycopy(values, 0, row, 1, values.length);
+        appendRow(row);
+    }
+
+    /**
+     * Appends a row. INT columns store the value truncated to an int.
+     *
+     * @param values One value per column.
+     * @throws IllegalStateException If the file is full.
+     */
+    public void appendRow(double[] values) {
+        if (rowCount == rowCapacity) {
+            throw new IllegalStateException("Run file " + file + " is full at " + rowCapacity + " rows");
+        }
+        for (int i = 0; i < types.length; i++) {
+            int position = (int) (columnOffsets[i] + (long) rowCount * types[i].width);
+            if (types[i] == RunFile.ColumnType.INT) {
+                buffer.putInt(position, (int) values[i]);
+            } else {
+                buffer.putDouble(position, values[i]);
+            }
+        }
+        buffer.putInt(RunFile.ROW_COUNT_OFFSET, ++rowCount);
+    }
+
+    @Override
+    public void flush() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() {
+        try {
+            buffer.force();
+            raf.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write " + file, e);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package simulation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Summary statistics of a stream of non-negative values, updated in O(1) per value and in constant memory: count,
+ * mean and variance (Welford's algorithm), minimum, maximum and quantiles from a {@link QuantileSketch}.
+ */
+public final class RunningStatistics {
+    private long count;
+    private double mean;
+    private double m2; // sum of squared differences from the mean
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+    private final QuantileSketch sketch;
+
+    public RunningStatistics() {
+        this(new QuantileSketch());
+    }
+
+    private RunningStatistics(QuantileSketch sketch) {
+        this.sketch = sketch;
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value The value.
+     */
+    public void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        if (count == 1) {
+            min = value;
+            max = value;
+        } else {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        sketch.add(value);
+    }
+
+    /**
+     * Removes all values.
+     */
+    public void clear() {
+        count = 0;
+        mean = 0;
+        m2 = 0;
+        min = Double.NaN;
+        max = Double.NaN;
+        sketch.clear();
+    }
+
+    /**
+     * Adds all values of another instance to this one, using Chan et al.'s pairwise update for the variance.
+     *
+     * @param other The statistics to add.
+     */
+    public void merge(RunningStatistics other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            min = other.min;
+            max = other.max;
+        } else {
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        m2 += other.m2 + delta * delta * count * other.count / total;
+        count = total;
+        sketch.merge(other.sketch);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return The mean, or NaN if there are no values.
+     */
+    public double getMean() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    /**
+     * @return The sample variance, or NaN if there are fewer than two values.
+     */
+    public double getVariance() {
+        return count < 2 ? Double.NaN : m2 / (count - 1);
+    }
+
+    /**
+     * @return The sample standard deviation, or NaN if there are fewer than two values.
+     */
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * @return The smallest value, or NaN if there are no values.
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * @return The largest value, or NaN if there are no values.
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * @param quantile A quantile between 0 and 1.
+     * @return The quantile, within the sketch's relative accuracy, or NaN if there are no values.
+     */
+    public double getQuantile(double quantile) {
+        return sketch.quantile(quantile);
+    }
+
+    /**
+     * Writes the statistics, e.g. to send them to another process that merges them, see
+     * {@link #readFrom(DataInput)}.
+     *
+     * @param out The output.
+     * @throws IOException If the output fails.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(count);
+        out.writeDouble(mean);
+        out.writeDouble(m2);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        sketch.writeTo(out);
+    }
+
+    /**
+     * Reads statistics written by {@link #writeTo(DataOutput)}.
+     *
+     * @param in The input.
+     * @return The statistics.
+     * @throws IOException If the input fails.
+     */
+    public static RunningStatistics readFrom(DataInput in) throws IOException {
+        long count = in.readLong();
+        double mean = in.readDouble();
+        double m2 = in.readDouble();
+        double min = in.readDouble();
+        double max = in.readDouble();
+        RunningStatistics statistics = new RunningStatistics(QuantileSketch.readFrom(in));
+        statistics.count = count;
+        statistics.mean = mean;
+        statistics.m2 = m2;
+        statistics.min = min;
+        statistics.max = max;
+        return statistics;
+    }
+}
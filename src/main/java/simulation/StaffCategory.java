@@ -0,0 +1,35 @@
+package simulation;
+
+import lombok.Getter;
+
+/**
+ * The groups of staff a treatment draws on, used to index the ER's staff pool and the per-triage requirements.
+ */
+public enum StaffCategory {
+    NURSES("Nurses"),
+    PHYSICIANS("Physicians"),
+    RESIDENTS("Residents");
+
+    /** The category's name in {@link EmergencyRoom#getAvailableStaff()}. */
+    @Getter
+    private final String label;
+
+    StaffCategory(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Maps a role from config.json's staffCounts to the category it is counted in.
+     *
+     * @param role The role name, e.g. "REGISTERED_NURSE".
+     * @return The category, or {@code null} if the role does not take part in treatments.
+     */
+    public static StaffCategory forRole(String role) {
+        return switch (role) {
+            case "REGISTERED_NURSE", "LICENSED_PRACTICAL_NURSE", "CERTIFIED_NURSING_ASSISTANT" -> NURSES;
+            case "ATTENDING_PHYSICIAN" -> PHYSICIANS;
+            case "RESIDENT_PHYSICIAN" -> RESIDENTS;
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,55 @@
+package simulation;
+
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * Samples treatment times for each {@link Patient.TriageLevel}. Treatment times follow a normal distribution whose
+ * mean is the level's average treatment time and whose standard deviation is a fixed fraction of that mean.
+ * The parameters are resolved once into arrays indexed by triage level, so a draw is one Gaussian and no lookups.
+ */
+public final class TreatmentTimeSampler {
+    private static final long SECONDS_PER_MINUTE = 60;
+
+    private final double[] meanMins;
+    private final double[] stdDevMins;
+
+    /**
+     * @param avgTreatmentTimesMins Average treatment time in minutes for every triage level.
+     * @param relativeStdDev        Standard deviation as a fraction of the mean.
+     */
+    public TreatmentTimeSampler(Map<Patient.TriageLevel, Double> avgTreatmentTimesMins, double relativeStdDev) {
+        Patient.TriageLevel[] levels = Patient.TriageLevel.values();
+        this.meanMins = new double[levels.length];
+        this.stdDevMins = new double[levels.length];
+        for (Patient.TriageLevel level : levels) {
+            Double mean = avgTreatmentTimesMins.get(level);
+            if (mean == null) {
+                throw new IllegalArgumentException("No average treatment time for triage level " + level);
+            }
+            meanMins[level.ordinal()] = mean;
+            stdDevMins[level.ordinal()] = relativeStdDev * mean;
+        }
+    }
+
+    /**
+     * Draws a treatment time, truncated to whole minutes.
+     *
+     * @param triageLevel The patient's triage level.
+     * @param random      The generator to draw from.
+     * @return The treatment time in seconds.
+     */
+    public long sampleSeconds(Patient.TriageLevel triageLevel, RandomGenerator random) {
+        int level = triageLevel.ordinal();
+        double minutes = meanMins[level] + stdDevMins[level] * random.nextGaussian();
+        return SECONDS_PER_MINUTE * (long) minutes;
+    }
+
+    /**
+     * @param triageLevel A triage level.
+     * @return The mean treatment time in minutes for that level.
+     */
+    public double getMeanMins(Patient.TriageLevel triageLevel) {
+        return meanMins[triageLevel.ordinal()];
+    }
+}
@@ -0,0 +1,277 @@
+package simulation;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * The queue of patients waiting for treatment, ordered by triage level and by arrival within a level.
+ * <p>
+ * There is one lane per triage level and a bitmask of the non-empty lanes, so admitting, peeking and polling are O(1)
+ * amortized and the lowest set bit of the mask is the most urgent waiting level. Patients of equal urgency leave in
+ * the order they arrived. Per-level queue lengths are kept alongside the lanes.
+ * </p>
+ * <p>
+ * A lane is a FIFO of patients who arrived at that level plus a small heap, ordered by arrival time, of patients
+ * promoted into it by deterioration. Its head is the earlier of the two, so promoting a patient costs O(log n) and
+ * each lane still yields its longest-waiting patient first.
+ * </p>
+ * <p>
+ * Because the head of each lane has waited longest, priority aging only needs to look at the lane heads: a patient's
+ * effective rank is their level minus one for every aging interval waited, up to a cap. {@link #bestLevel(int, long)}
+ * compares at most five heads and nothing is ever re-sorted.
+ * </p>
+ * A specific patient, for example one who leaves without being seen, is removed in O(1) by clearing their
+ * {@link Patient#isWaiting()} flag. Lane entries whose patient is no longer waiting, or has since been promoted to
+ * another level, are tombstones; they are dropped when they reach the front, or all at once when the lane has no live
+ * patients left.
+ */
+public class WaitingRoom {
+    private static final Patient.TriageLevel[] LEVELS = Patient.TriageLevel.values(); // most urgent first
+    private static final Comparator<Patient> BY_ARRIVAL = Comparator.comparingLong(Patient::getArrivalTime);
+
+    private final ArrayDeque<Patient>[] lanes;
+    private final PriorityQueue<Patient>[] promoted;
+    private final int[] laneSizes; // live patients per lane, excluding tombstones
+    private int nonEmptyLanes;     // bit i is set when lane i has a live patient
+    private int size;
+
+    private final double[] agingSecs = new double[LEVELS.length]; // seconds waited per level of aging, 0 for none
+    private int maxAgingLevels;
+
+    @SuppressWarnings("unchecked")
+    public WaitingRoom() {
+        this.lanes = new ArrayDeque[LEVELS.length];
+        this.promoted = new PriorityQueue[LEVELS.length];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new ArrayDeque<>();
+            promoted[i] = new PriorityQueue<>(BY_ARRIVAL);
+        }
+        this.laneSizes = new int[LEVELS.length];
+    }
+
+    /**
+     * Configures priority aging.
+     *
+     * @param agingMins      Minutes a patient of each triage level must wait to gain one level of priority, or 0 if
+     *                       patients of that level do not age. Indexed by triage level ordinal.
+     * @param maxAgingLevels The most levels of priority a patient can gain by waiting.
+     */
+    public void setAging(double[] agingMins, int maxAgingLevels) {
+        for (int i = 0; i < agingSecs.length; i++) {
+            agingSecs[i] = Math.max(0.0, agingMins[i]) * 60.0;
+        }
+        this.maxAgingLevels = Math.max(0, maxAgingLevels);
+    }
+
+    /**
+     * Adds a patient to the back of the lane for their triage level.
+     *
+     * @param patient The patient to add. They must not already be waiting.
+     */
+    public void add(Patient patient) {
+        int lane = patient.getTriageLevel().ordinal();
+        lanes[lane].addLast(patient);
+        patient.setWaiting(true);
+        enter(lane);
+    }
+
+    /**
+     * Moves a waiting patient to another triage level, keeping their place by arrival time in the new lane.
+     *
+     * @param patient     The waiting patient.
+     * @param triageLevel The patient's new triage level.
+     * @return {@code true} if the patient was waiting and has been moved; {@code false} otherwise.
+     */
+    public boolean promote(Patient patient, Patient.TriageLevel triageLevel) {
+        if (!patient.isWaiting() || patient.getTriageLevel() == triageLevel) {
+            return false;
+        }
+        leave(patient.getTriageLevel().ordinal());
+        patient.setTriageLevel(triageLevel); // the old lane entry is now a tombstone
+        int lane = triageLevel.ordinal();
+        promoted[lane].add(patient);
+        enter(lane);
+        return true;
+    }
+
+    /**
+     * @return The longest-waiting patient of the most urgent triage level, or {@code null} if nobody is waiting.
+     */
+    public Patient peek() {
+        return nonEmptyLanes == 0 ? null : head(Integer.numberOfTrailingZeros(nonEmptyLanes));
+    }
+
+    /**
+     * Retrieves and removes the longest-waiting patient of the most urgent triage level, ignoring priority aging.
+     *
+     * @return The patient, or {@code null} if nobody is waiting.
+     */
+    public Patient poll() {
+        return nonEmptyLanes == 0 ? null : pollLane(Integer.numberOfTrailingZeros(nonEmptyLanes));
+    }
+
+    /**
+     * Retrieves and removes the longest-waiting patient of a triage level.
+     *
+     * @param triageLevel A triage level.
+     * @return The patient, or {@code null} if nobody of that level is waiting.
+     */
+    public Patient poll(Patient.TriageLevel triageLevel) {
+        int lane = triageLevel.ordinal();
+        return laneSizes[lane] == 0 ? null : pollLane(lane);
+    }
+
+    /**
+     * Finds the triage level whose longest-waiting patient has the best effective priority after aging. Ties go to
+     * the more urgent triage level.
+     *
+     * @param levels A bitmask of the triage levels to consider, by ordinal.
+     * @param now    The current time in seconds since the start of the simulation.
+     * @return The ordinal of the best level, or -1 if none of the given levels has waiting patients.
+     */
+    public int bestLevel(int levels, long now) {
+        int candidates = levels & nonEmptyLanes;
+        if (candidates == 0) {
+            return -1;
+        }
+        int best = Integer.numberOfTrailingZeros(candidates);
+        if (maxAgingLevels == 0) {
+            return best;
+        }
+        double bestRank = Double.MAX_VALUE;
+        for (int remaining = candidates; remaining != 0; remaining &= remaining - 1) {
+            int lane = Integer.numberOfTrailingZeros(remaining);
+            double rank = lane;
+            if (agingSecs[lane] > 0) {
+                rank -= Math.min((now - head(lane).getArrivalTime()) / agingSecs[lane], maxAgingLevels);
+            }
+            if (rank < bestRank) {
+                bestRank = rank;
+                best = lane;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return A bitmask with bit {@code level.ordinal()} set for each triage level that has waiting patients.
+     */
+    public int nonEmptyLevels() {
+        return nonEmptyLanes;
+    }
+
+    /**
+     * Removes a specific patient, wherever they are in the queue.
+     *
+     * @param patient The patient to remove.
+     * @return {@code true} if the patient was waiting; {@code false} otherwise.
+     */
+    public boolean remove(Patient patient) {
+        if (!patient.isWaiting()) {
+            return false;
+        }
+        patient.setWaiting(false);
+        leave(patient.getTriageLevel().ordinal());
+        return true;
+    }
+
+    /**
+     * @param triageLevel A triage level.
+     * @return The longest-waiting patient of that level, or {@code null} if there is none.
+     */
+    public Patient peek(Patient.TriageLevel triageLevel) {
+        int lane = triageLevel.ordinal();
+        return laneSizes[lane] == 0 ? null : head(lane);
+    }
+
+    /**
+     * @return The total number of waiting patients.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param triageLevel A triage level.
+     * @return The number of waiting patients of that level.
+     */
+    public int size(Patient.TriageLevel triageLevel) {
+        return laneSizes[triageLevel.ordinal()];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all waiting patients.
+     */
+    public void clear() {
+        for (int lane = 0; lane < lanes.length; lane++) {
+            for (Patient patient : lanes[lane]) {
+                patient.setWaiting(false);
+            }
+            for (Patient patient : promoted[lane]) {
+                patient.setWaiting(false);
+            }
+            lanes[lane].clear();
+            promoted[lane].clear();
+        }
+        Arrays.fill(laneSizes, 0);
+        nonEmptyLanes = 0;
+        size = 0;
+    }
+
+    /**
+     * Drops tombstones from the front of a lane that has a live patient and returns its longest-waiting patient.
+     */
+    private Patient head(int lane) {
+        ArrayDeque<Patient> arrived = lanes[lane];
+        while (!arrived.isEmpty() && !isLive(arrived.peekFirst(), lane)) {
+            arrived.pollFirst();
+        }
+        PriorityQueue<Patient> moved = promoted[lane];
+        while (!moved.isEmpty() && !isLive(moved.peek(), lane)) {
+            moved.poll();
+        }
+        Patient first = arrived.peekFirst();
+        Patient promotedFirst = moved.peek();
+        if (first == null || (promotedFirst != null && promotedFirst.getArrivalTime() < first.getArrivalTime())) {
+            return promotedFirst;
+        }
+        return first;
+    }
+
+    private Patient pollLane(int lane) {
+        Patient patient = head(lane);
+        if (patient == lanes[lane].peekFirst()) {
+            lanes[lane].pollFirst();
+        } else {
+            promoted[lane].poll();
+        }
+        patient.setWaiting(false);
+        leave(lane);
+        return patient;
+    }
+
+    private static boolean isLive(Patient patient, int lane) {
+        return patient.isWaiting() && patient.getTriageLevel().ordinal() == lane;
+    }
+
+    private void enter(int lane) {
+        laneSizes[lane]++;
+        nonEmptyLanes |= 1 << lane;
+        size++;
+    }
+
+    private void leave(int lane) {
+        if (--laneSizes[lane] == 0) {
+            nonEmptyLanes &= ~(1 << lane);
+            lanes[lane].clear(); // only tombstones are left
+            promoted[lane].clear();
+        }
+        size--;
+    }
+}